@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+// Runs every .bin in a directory through its own Simulator on a fixed thread pool.
+public class BatchRunner {
+
+    public static class Outcome {
+        public final String inputFile;
+        public final SimulationResult result;
+        public final String error;
+
+        Outcome(String inputFile, SimulationResult result, String error) {
+            this.inputFile = inputFile;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    // outputs go to outputDirectory as <name>.pipeline_dis.txt / <name>.pipeline_pipeline.txt,
+    // the outcomes come back in file name order
+    public static List<Outcome> run(Path inputDirectory, Path outputDirectory, SimulatorConfig config, int threads) {
+        List<Path> programs;
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            programs = files.filter(path -> path.getFileName().toString().endsWith(".bin")).sorted().toList();
+        } catch (IOException e) {
+            throw new SimulationException("Could not list directory: " + inputDirectory, e);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Outcome>> futures = new ArrayList<>();
+            for (Path program : programs) {
+                futures.add(pool.submit(() -> runOne(program, outputDirectory, config)));
+            }
+
+            List<Outcome> outcomes = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    outcomes.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    outcomes.add(new Outcome(programs.get(i).toString(), null, String.valueOf(e.getCause())));
+                }
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulationException("Batch run interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Outcome runOne(Path program, Path outputDirectory, SimulatorConfig config) {
+        String name = program.getFileName().toString();
+        String outputFilePrefix = outputDirectory.resolve(name.substring(0, name.length() - 4) + ".pipeline").toString();
+
+        try {
+            return new Outcome(program.toString(), new Simulator(config).run(program.toString(), outputFilePrefix), null);
+        } catch (SimulationException e) {
+            return new Outcome(program.toString(), null, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.*;
+import java.util.Collection;
+import java.util.List;
+
+// Compact binary pipeline trace. Instead of formatting text every cycle it records which instruction
+// addresses sit in each buffer plus the registers and memory words that changed; TraceRenderer turns
+// the file back into the usual _pipeline.txt layout.
+//
+// Layout (all big-endian):
+//   header: MAGIC, VERSION, 5 buffer sizes, instruction count, {address, word}*,
+//           32 initial registers, memory run count, {start address, word count, word*}*
+//   cycle:  CYCLE_RECORD, cycle (long, an int in version 1), 5 x {count (byte), address*},
+//           register delta count (byte), {register (byte), value}*, memory delta count, {address, value}*
+//   end:    END_RECORD
+public class BinaryTraceWriter implements Closeable {
+    public static final int MAGIC = 0x4D545243; // "MTRC"
+    public static final int VERSION = 2;
+    public static final int BUFFER_COUNT = 5;
+
+    public static final byte END_RECORD = 0;
+    public static final byte CYCLE_RECORD = 1;
+
+    private final DataOutputStream out;
+    private final CountingOutputStream file;
+    private final int[] registers;
+    private final int[] lastRegisters;
+    private final DataMemory data;
+
+    public BinaryTraceWriter(String filename, int[] bufferSizes, InstructionMemory instructions,
+                             int[] registers, DataMemory data) throws IOException {
+        this.file = new CountingOutputStream(new FileOutputStream(filename));
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        this.registers = registers;
+        this.lastRegisters = registers.clone();
+        this.data = data;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        for (int size : bufferSizes) {
+            out.writeInt(size);
+        }
+
+        int instructionCount = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(InstructionMemory.BASE_ADDRESS + (i << 2)) != null) instructionCount++;
+        }
+        out.writeInt(instructionCount);
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(InstructionMemory.BASE_ADDRESS + (i << 2));
+            if (instruction != null) {
+                out.writeInt(instruction.memoryAddress);
+                out.writeInt(instruction.asInt);
+            }
+        }
+
+        out.writeInt(registers.length);
+        for (int register : registers) {
+            out.writeInt(register);
+        }
+
+        List<int[]> runs = data.getRuns();
+        out.writeInt(runs.size());
+        for (int[] run : runs) {
+            out.writeInt(run[0]);
+            out.writeInt(run[1]);
+            for (int i = 0; i < run[1]; i++) {
+                out.writeInt(data.load(run[0] + (i << 2)));
+            }
+        }
+
+        data.enableStoreLog();
+        data.clearStoreLog();
+    }
+
+    // buffers are in print order: pre-issue, pre-ALU, post-ALU, pre-MEM, post-MEM
+    public void writeCycle(long cycle, Collection<Instruction> preIssue, Collection<Instruction> preALU,
+                           Collection<Instruction> postALU, Collection<Instruction> preMem,
+                           Collection<Instruction> postMem) throws IOException {
+        out.writeByte(CYCLE_RECORD);
+        out.writeLong(cycle);
+
+        writeBuffer(preIssue);
+        writeBuffer(preALU);
+        writeBuffer(postALU);
+        writeBuffer(preMem);
+        writeBuffer(postMem);
+
+        int changedRegisters = 0;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != lastRegisters[i]) changedRegisters++;
+        }
+        out.writeByte(changedRegisters);
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != lastRegisters[i]) {
+                out.writeByte(i);
+                out.writeInt(registers[i]);
+                lastRegisters[i] = registers[i];
+            }
+        }
+
+        // the same address may be logged twice in a cycle, the renderer just applies both
+        out.writeInt(data.getStoreLogSize());
+        for (int i = 0; i < data.getStoreLogSize(); i++) {
+            int address = data.getStoreLogAddress(i);
+            out.writeInt(address);
+            out.writeInt(data.load(address));
+        }
+        data.clearStoreLog();
+    }
+
+    // bytes that have reached the file so far, the buffered tail isn't counted until it's flushed
+    public long getBytesWritten() {
+        return file.count;
+    }
+
+    private void writeBuffer(Collection<Instruction> buffer) throws IOException {
+        out.writeByte(buffer.size());
+        for (Instruction instruction : buffer) {
+            out.writeInt(instruction.memoryAddress);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeByte(END_RECORD);
+        out.close();
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Direction predictor (bimodal 2-bit counters, or gshare which XORs a global history into the index)
+// plus a direct-mapped branch target buffer. Fetch asks it for the next PC of a JR / BLTZ / BEQ whose
+// operands aren't ready yet; every resolved branch is fed back through update() to train it. Accuracy
+// only covers the predictions fetch acted on: a branch resolved in fetch was never predicted.
+public class BranchPredictor {
+    public static final int BIMODAL = 1;
+    public static final int GSHARE = 2;
+
+    public static class BranchRecord {
+        public long executions = 0;
+        public long predictions = 0;
+        public long correct = 0;
+        public long squashes = 0;
+
+        public double getAccuracy() {
+            return predictions == 0 ? 0 : (double) correct / predictions;
+        }
+    }
+
+    private final int type;
+    private final byte[] counters;
+    private final int tableMask;
+    private final int historyMask;
+    private int history = 0;
+
+    private final int[] btbTags;
+    private final int[] btbTargets;
+    private final boolean[] btbValid;
+    private final int btbMask;
+
+    private final Map<Integer, BranchRecord> records = new TreeMap<>();
+
+    // every resolved branch / the ones fetch speculated past and how many of those it got right
+    public long executions = 0;
+    public long predictions = 0;
+    public long correct = 0;
+    public long squashes = 0;
+
+    public BranchPredictor(int type, int tableBits, int historyBits, int btbEntries) {
+        if (type != BIMODAL && type != GSHARE) {
+            throw new IllegalArgumentException("Unknown predictor type: " + type);
+        }
+        if (tableBits < 1 || tableBits > 24 || historyBits > tableBits) {
+            throw new IllegalArgumentException("Predictor table bits must be 1-24 and at least the history bits");
+        }
+        if (Integer.bitCount(btbEntries) != 1) {
+            throw new IllegalArgumentException("BTB entries must be a power of two: " + btbEntries);
+        }
+
+        this.type = type;
+        this.counters = new byte[1 << tableBits];
+        this.tableMask = (1 << tableBits) - 1;
+        this.historyMask = (1 << historyBits) - 1;
+
+        // weakly not taken
+        Arrays.fill(counters, (byte) 1);
+
+        this.btbTags = new int[btbEntries];
+        this.btbTargets = new int[btbEntries];
+        this.btbValid = new boolean[btbEntries];
+        this.btbMask = btbEntries - 1;
+    }
+
+    public Map<Integer, BranchRecord> getRecords() {
+        return records;
+    }
+
+    public double getAccuracy() {
+        return predictions == 0 ? 0 : (double) correct / predictions;
+    }
+
+    // a JR can only be predicted once the BTB has seen its target
+    public boolean canPredict(Instruction branch) {
+        return branch.opcodeType != Opcode.JR || btbHit(branch.memoryAddress);
+    }
+
+    public int predictNextPc(Instruction branch) {
+        int pc = branch.memoryAddress;
+        if (branch.opcodeType == Opcode.JR) {
+            return btbTargets[pc >>> 2 & btbMask];
+        }
+
+        // predicted taken without a BTB entry still falls through, there is no target to go to yet
+        if (counters[counterIndex(pc)] >= 2 && btbHit(pc)) {
+            return btbTargets[pc >>> 2 & btbMask];
+        }
+        return pc + 4;
+    }
+
+    // a branch fetch speculated past, with the next PC fetch went on at
+    public void update(Instruction branch, int predictedNextPc, int actualNextPc) {
+        BranchRecord record = records.computeIfAbsent(branch.memoryAddress, k -> new BranchRecord());
+        record.predictions++;
+        predictions++;
+        if (predictedNextPc == actualNextPc) {
+            record.correct++;
+            correct++;
+        }
+        update(branch, actualNextPc);
+    }
+
+    // a branch resolved in fetch, only trains the tables
+    public void update(Instruction branch, int actualNextPc) {
+        int pc = branch.memoryAddress;
+        records.computeIfAbsent(pc, k -> new BranchRecord()).executions++;
+        executions++;
+
+        boolean taken = actualNextPc != pc + 4 || branch.opcodeType == Opcode.JR;
+        if (branch.opcodeType != Opcode.JR) {
+            int index = counterIndex(pc);
+            if (taken && counters[index] < 3) counters[index]++;
+            if (!taken && counters[index] > 0) counters[index]--;
+            history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+        }
+
+        if (taken) {
+            int slot = pc >>> 2 & btbMask;
+            btbTags[slot] = pc;
+            btbTargets[slot] = actualNextPc;
+            btbValid[slot] = true;
+        }
+    }
+
+    public void recordSquash(Instruction branch) {
+        squashes++;
+        records.computeIfAbsent(branch.memoryAddress, k -> new BranchRecord()).squashes++;
+    }
+
+    private boolean btbHit(int pc) {
+        int slot = pc >>> 2 & btbMask;
+        return btbValid[slot] && btbTags[slot] == pc;
+    }
+
+    private int counterIndex(int pc) {
+        int index = pc >>> 2;
+        if (type == GSHARE) {
+            index ^= history;
+        }
+        return index & tableMask;
+    }
+}
@@ -0,0 +1,19 @@
+// Hit / miss / writeback counters of one cache.
+public class CacheStats {
+    public long hits = 0;
+    public long misses = 0;
+    public long writebacks = 0;
+
+    public long getAccesses() {
+        return hits + misses;
+    }
+
+    public double getHitRate() {
+        return getAccesses() == 0 ? 0 : (double) hits / getAccesses();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%s misses=%s writebacks=%s hit rate=%.4f", hits, misses, writebacks, getHitRate());
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.*;
+import java.util.List;
+
+// Architectural state of a program part way through: program counter, registers and every data word that
+// has been written. The program itself isn't stored, a checkpoint is restored on top of the same .bin.
+//
+// Layout (all big-endian):
+//   MAGIC, VERSION, program counter, instructions executed (long), register count, register*,
+//   memory run count, {start address, word count, word*}*
+public class Checkpoint {
+    public static final int MAGIC = 0x4D434B50; // "MCKP"
+    public static final int VERSION = 1;
+
+    public final int programCounter;
+    public final long instructionsExecuted;
+    public final int[] registers;
+    public final DataMemory data;
+
+    public Checkpoint(int programCounter, long instructionsExecuted, int[] registers, DataMemory data) {
+        this.programCounter = programCounter;
+        this.instructionsExecuted = instructionsExecuted;
+        this.registers = registers;
+        this.data = data;
+    }
+
+    // copies the functional model's state, which keeps running afterwards
+    public static Checkpoint capture(FunctionalSimulator functional) {
+        return new Checkpoint(functional.programCounter, functional.instructionsExecuted,
+                functional.registers.clone(), copyData(functional.data));
+    }
+
+    // writes every word of source into target
+    public static void copyData(DataMemory source, DataMemory target) {
+        for (int[] run : source.getRuns()) {
+            for (int i = 0; i < run[1]; i++) {
+                int address = run[0] + (i << 2);
+                target.store(address, source.load(address));
+            }
+        }
+    }
+
+    private static DataMemory copyData(DataMemory source) {
+        DataMemory copy = new DataMemory();
+        copyData(source, copy);
+        return copy;
+    }
+
+    public void save(String filename) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(programCounter);
+            out.writeLong(instructionsExecuted);
+
+            out.writeInt(registers.length);
+            for (int register : registers) {
+                out.writeInt(register);
+            }
+
+            List<int[]> runs = data.getRuns();
+            out.writeInt(runs.size());
+            for (int[] run : runs) {
+                out.writeInt(run[0]);
+                out.writeInt(run[1]);
+                for (int i = 0; i < run[1]; i++) {
+                    out.writeInt(data.load(run[0] + (i << 2)));
+                }
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Could not write checkpoint: " + filename, e);
+        }
+    }
+
+    public static Checkpoint load(String filename) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new SimulationException("Not a checkpoint file: " + filename);
+            }
+
+            int programCounter = in.readInt();
+            long instructionsExecuted = in.readLong();
+
+            int[] registers = new int[in.readInt()];
+            for (int r = 0; r < registers.length; r++) {
+                registers[r] = in.readInt();
+            }
+
+            DataMemory data = new DataMemory();
+            int runCount = in.readInt();
+            for (int run = 0; run < runCount; run++) {
+                int start = in.readInt();
+                int words = in.readInt();
+                for (int i = 0; i < words; i++) {
+                    data.store(start + (i << 2), in.readInt());
+                }
+            }
+
+            return new Checkpoint(programCounter, instructionsExecuted, registers, data);
+        } catch (IOException e) {
+            throw new SimulationException("Could not read checkpoint: " + filename, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+// Write-back, write-allocate D-cache in front of data memory. A load or store that misses leaves
+// pre-MEM and waits here for missPenalty cycles, then its block is installed (dirty for a store) and
+// the op finishes. Blocking caches hold every later memory op until the miss is done; non-blocking
+// ones let later ops to other blocks hit under up to mshrs outstanding misses. Dirty evictions are
+// counted but assumed to drain through a write buffer, so they add no latency.
+public class DataCache {
+    private final SetAssociativeCache cache;
+    private final int blockBits;
+    private final int missPenalty;
+    private final boolean nonBlocking;
+
+    // outstanding misses, oldest first
+    private final Instruction[] missInstructions;
+    private final int[] missAddresses;
+    private final int[] missValues;
+    private final int[] missCyclesLeft;
+    private int outstanding = 0;
+
+    public DataCache(int size, int blockSize, int associativity, int missPenalty, boolean nonBlocking, int mshrs) {
+        this.cache = new SetAssociativeCache(size, blockSize, associativity);
+        this.blockBits = Integer.numberOfTrailingZeros(blockSize);
+        this.missPenalty = missPenalty;
+        this.nonBlocking = nonBlocking;
+
+        int entries = nonBlocking ? mshrs : 1;
+        this.missInstructions = new Instruction[entries];
+        this.missAddresses = new int[entries];
+        this.missValues = new int[entries];
+        this.missCyclesLeft = new int[entries];
+    }
+
+    public CacheStats getStats() {
+        return cache.stats;
+    }
+
+    public int getOutstandingCount() {
+        return outstanding;
+    }
+
+    // penalty still to wait out over every outstanding miss
+    public long getCyclesLeft() {
+        long cyclesLeft = 0;
+        for (int i = 0; i < outstanding; i++) {
+            cyclesLeft += missCyclesLeft[i];
+        }
+        return cyclesLeft;
+    }
+
+    public void tick() {
+        for (int i = 0; i < outstanding; i++) {
+            if (missCyclesLeft[i] > 0) {
+                missCyclesLeft[i]--;
+            }
+        }
+    }
+
+    // false if the op has to wait in pre-MEM: the cache is blocked, the block is already being
+    // fetched, or it would miss with no miss entry free
+    public boolean canAccept(int address) {
+        if (outstanding > 0 && !nonBlocking) {
+            return false;
+        }
+
+        for (int i = 0; i < outstanding; i++) {
+            if ((missAddresses[i] >>> blockBits) == (address >>> blockBits)) {
+                return false;
+            }
+        }
+
+        return outstanding < missInstructions.length || cache.contains(address);
+    }
+
+    // true on a hit, the op finishes this cycle. On a miss the op is held until peekCompleted() returns it.
+    // value is what a store writes, captured now since its source register may be rewritten during the miss
+    public boolean access(Instruction instruction, int address, int value, boolean write) {
+        if (cache.access(address, write)) {
+            return true;
+        }
+
+        if (missPenalty == 0) {
+            cache.fill(address, write);
+            return true;
+        }
+
+        missInstructions[outstanding] = instruction;
+        missAddresses[outstanding] = address;
+        missValues[outstanding] = value;
+        missCyclesLeft[outstanding] = missPenalty;
+        outstanding++;
+        return false;
+    }
+
+    // oldest miss that has waited out its penalty, or null
+    public Instruction peekCompleted() {
+        for (int i = 0; i < outstanding; i++) {
+            if (missCyclesLeft[i] == 0) {
+                return missInstructions[i];
+            }
+        }
+        return null;
+    }
+
+    public int getCompletedAddress() {
+        return missAddresses[completedIndex()];
+    }
+
+    public int getCompletedValue() {
+        return missValues[completedIndex()];
+    }
+
+    // installs the block of the op returned by peekCompleted() and frees its miss entry
+    public void removeCompleted() {
+        int index = completedIndex();
+        cache.fill(missAddresses[index], missInstructions[index].opcodeType == Opcode.SW);
+
+        for (int i = index; i < outstanding - 1; i++) {
+            missInstructions[i] = missInstructions[i + 1];
+            missAddresses[i] = missAddresses[i + 1];
+            missValues[i] = missValues[i + 1];
+            missCyclesLeft[i] = missCyclesLeft[i + 1];
+        }
+        outstanding--;
+        missInstructions[outstanding] = null;
+    }
+
+    private int completedIndex() {
+        for (int i = 0; i < outstanding; i++) {
+            if (missCyclesLeft[i] == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No completed miss");
+    }
+}
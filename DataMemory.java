@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+// Sparse word-addressed data memory made of primitive int[] pages that are allocated on first touch.
+// Any word address can be read or written; untouched words read as 0. Every page keeps a bitmap of the
+// words that were actually written so the touched parts of memory can be dumped without scanning.
+public class DataMemory {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_WORDS = 1 << PAGE_BITS;
+    private static final int DIR_BITS = 10;
+    private static final int DIR_SIZE = 1 << DIR_BITS;
+    private static final int BITMAP_LONGS = PAGE_WORDS / 64;
+
+    // word index (address >>> 2) is split into directory / page / offset
+    private final int[][][] directory = new int[1 << (30 - PAGE_BITS - DIR_BITS)][][];
+
+    // page number -> one bit per written word, kept sorted for dumping
+    private final TreeMap<Integer, long[]> writtenWords = new TreeMap<>();
+
+    // addresses stored to since the last clearStoreLog(), only kept once enableStoreLog() is called
+    private int[] storeLog;
+    private int storeLogSize = 0;
+
+    private int lastPageNumber = -1;
+    private int[] lastPage;
+    private long[] lastWritten;
+
+    public int load(int address) {
+        int wordIndex = address >>> 2;
+        int[] page = findPage(wordIndex >>> PAGE_BITS);
+        return page == null ? 0 : page[wordIndex & (PAGE_WORDS - 1)];
+    }
+
+    public void store(int address, int value) {
+        int wordIndex = address >>> 2;
+        int pageNumber = wordIndex >>> PAGE_BITS;
+        int offset = wordIndex & (PAGE_WORDS - 1);
+
+        int[] page = findPage(pageNumber);
+        if (page == null) {
+            page = allocatePage(pageNumber);
+        }
+        page[offset] = value;
+
+        lastWritten[offset >>> 6] |= 1L << offset;
+
+        if (storeLog != null) {
+            if (storeLogSize == storeLog.length) {
+                storeLog = Arrays.copyOf(storeLog, storeLogSize * 2);
+            }
+            storeLog[storeLogSize++] = address;
+        }
+    }
+
+    public void enableStoreLog() {
+        if (storeLog == null) {
+            storeLog = new int[16];
+        }
+    }
+
+    public int getStoreLogSize() {
+        return storeLogSize;
+    }
+
+    public int getStoreLogAddress(int index) {
+        return storeLog[index];
+    }
+
+    public void clearStoreLog() {
+        storeLogSize = 0;
+    }
+
+    // contiguous runs of written words as {start address, word count}, in address order
+    public List<int[]> getRuns() {
+        List<int[]> runs = new ArrayList<>();
+        int[] current = null;
+        for (var entry : writtenWords.entrySet()) {
+            int pageStart = entry.getKey() << PAGE_BITS;
+            long[] written = entry.getValue();
+
+            for (int i = 0; i < BITMAP_LONGS; i++) {
+                long bits = written[i];
+                while (bits != 0) {
+                    // next block of set bits in this long
+                    int low = Long.numberOfTrailingZeros(bits);
+                    int count = Long.numberOfTrailingZeros(~(bits >>> low));
+                    bits = low + count == 64 ? 0 : bits & (-1L << (low + count));
+
+                    int startWord = pageStart + (i << 6) + low;
+                    if (current != null && (current[0] >>> 2) + current[1] == startWord) {
+                        current[1] += count;
+                    } else {
+                        current = new int[]{startWord << 2, count};
+                        runs.add(current);
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    private int[] findPage(int pageNumber) {
+        if (pageNumber == lastPageNumber) {
+            return lastPage;
+        }
+
+        int[][] pages = directory[pageNumber >>> DIR_BITS];
+        int[] page = pages == null ? null : pages[pageNumber & (DIR_SIZE - 1)];
+        if (page != null) {
+            lastPageNumber = pageNumber;
+            lastPage = page;
+            lastWritten = writtenWords.get(pageNumber);
+        }
+        return page;
+    }
+
+    private int[] allocatePage(int pageNumber) {
+        int[][] pages = directory[pageNumber >>> DIR_BITS];
+        if (pages == null) {
+            pages = new int[DIR_SIZE][];
+            directory[pageNumber >>> DIR_BITS] = pages;
+        }
+
+        int[] page = new int[PAGE_WORDS];
+        pages[pageNumber & (DIR_SIZE - 1)] = page;
+
+        long[] written = new long[BITMAP_LONGS];
+        writtenWords.put(pageNumber, written);
+
+        lastPageNumber = pageNumber;
+        lastPage = page;
+        lastWritten = written;
+        return page;
+    }
+}
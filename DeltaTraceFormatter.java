@@ -0,0 +1,114 @@
+import java.util.Collection;
+import java.util.List;
+
+// Text trace that only prints what changed since the previous cycle: the buffers whose contents moved,
+// the registers that were written and the memory words that were stored. Every keyframeInterval cycles
+// (and on the first one) the full state is printed in the normal layout so the trace can be read from
+// any keyframe onwards. Cycles where nothing changed produce no output at all.
+public class DeltaTraceFormatter {
+    private static final String[] BUFFER_NAMES = {
+            "Pre-Issue Buffer:", "Pre_ALU Queue:", "Post_ALU Queue:", "Pre_MEM Queue:", "Post_MEM Queue:"
+    };
+
+    private final int keyframeInterval;
+    private final int[] bufferSizes;
+    private final int[] registers;
+    private final DataMemory data;
+
+    private final int[][] lastBuffers;
+    private final int[] lastBufferCounts;
+    private final int[] lastRegisters;
+
+    public DeltaTraceFormatter(int keyframeInterval, int[] bufferSizes, int[] registers, DataMemory data) {
+        this.keyframeInterval = keyframeInterval;
+        this.bufferSizes = bufferSizes;
+        this.registers = registers;
+        this.data = data;
+
+        this.lastBuffers = new int[bufferSizes.length][];
+        for (int i = 0; i < bufferSizes.length; i++) {
+            lastBuffers[i] = new int[bufferSizes[i]];
+        }
+        this.lastBufferCounts = new int[bufferSizes.length];
+        this.lastRegisters = registers.clone();
+
+        data.enableStoreLog();
+        data.clearStoreLog();
+    }
+
+    // buffers are in print order: pre-issue, pre-ALU, post-ALU, pre-MEM, post-MEM
+    public String createCycleString(long cycle, List<Instruction> preIssue, List<Instruction> preALU,
+                                    List<Instruction> postALU, List<Instruction> preMem, List<Instruction> postMem) {
+        List<List<Instruction>> buffers = List.of(preIssue, preALU, postALU, preMem, postMem);
+
+        if (cycle == 1 || (cycle - 1) % keyframeInterval == 0) {
+            for (int i = 0; i < buffers.size(); i++) {
+                remember(i, buffers.get(i));
+            }
+            System.arraycopy(registers, 0, lastRegisters, 0, registers.length);
+            data.clearStoreLog();
+
+            return Simulator.createCycleString(cycle, preIssue, preALU, postALU, preMem, postMem,
+                    bufferSizes, registers, data);
+        }
+
+        StringBuilder changes = new StringBuilder();
+
+        for (int i = 0; i < buffers.size(); i++) {
+            if (hasChanged(i, buffers.get(i))) {
+                remember(i, buffers.get(i));
+                changes.append(BUFFER_NAMES[i]).append('\n');
+                changes.append(Simulator.createBufferString(buffers.get(i), bufferSizes[i]));
+            }
+        }
+
+        boolean registersChanged = false;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != lastRegisters[i]) {
+                if (!registersChanged) {
+                    changes.append("Registers:\n");
+                    registersChanged = true;
+                }
+                changes.append(String.format("\tr%02d:\t%s\n", i, registers[i]));
+                lastRegisters[i] = registers[i];
+            }
+        }
+
+        if (data.getStoreLogSize() > 0) {
+            changes.append("Data:\n");
+            for (int i = 0; i < data.getStoreLogSize(); i++) {
+                int address = data.getStoreLogAddress(i);
+                changes.append(String.format("\t%s:\t%s\n", address, data.load(address)));
+            }
+            data.clearStoreLog();
+        }
+
+        if (changes.length() == 0) {
+            return "";
+        }
+
+        return "--------------------" + String.format("\nCycle: %s\t(delta)\n", cycle) + changes;
+    }
+
+    private boolean hasChanged(int bufferIndex, Collection<Instruction> buffer) {
+        if (buffer.size() != lastBufferCounts[bufferIndex]) {
+            return true;
+        }
+
+        int i = 0;
+        for (Instruction instruction : buffer) {
+            if (lastBuffers[bufferIndex][i++] != instruction.memoryAddress) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remember(int bufferIndex, Collection<Instruction> buffer) {
+        int i = 0;
+        for (Instruction instruction : buffer) {
+            lastBuffers[bufferIndex][i++] = instruction.memoryAddress;
+        }
+        lastBufferCounts[bufferIndex] = i;
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+// Runs a program one instruction at a time with no pipeline timing. Gives the final state of a program
+// without simulating any cycles, and is the reference the pipeline's final state gets checked against.
+public class FunctionalSimulator {
+    public static final long DEFAULT_INSTRUCTION_LIMIT = 100_000_000L;
+    // jumps and branches in a row, with no instruction in between, after which run() gives up
+    public static final long BRANCH_ONLY_LIMIT = 1_000_000L;
+
+    public final int[] registers = new int[32];
+    public final InstructionMemory instructions;
+    public final DataMemory data;
+    public int programCounter = InstructionMemory.BASE_ADDRESS;
+    public boolean halted = false;
+
+    // instructions executed, counted the way the pipeline counts completions: jumps, branches and BREAK
+    // are resolved in fetch and don't count
+    public long instructionsExecuted = 0;
+    // jumps and branches since the last instruction, only bounds run() on a program that loops through
+    // nothing else
+    private long branchesInARow = 0;
+
+    public FunctionalSimulator(InstructionMemory instructions, DataMemory data) {
+        this.instructions = instructions;
+        this.data = data;
+    }
+
+    // decodes the program and loads its data, without writing a listing
+    public static FunctionalSimulator load(String inputFile) {
+        SimulatorConfig config = new SimulatorConfig();
+        config.disassemblyListing = false;
+
+        Simulator loader = new Simulator(config);
+        loader.disassembly(inputFile, null);
+        return new FunctionalSimulator(loader.instructions, loader.data);
+    }
+
+    public void restore(Checkpoint checkpoint) {
+        System.arraycopy(checkpoint.registers, 0, registers, 0, registers.length);
+        Checkpoint.copyData(checkpoint.data, data);
+        programCounter = checkpoint.programCounter;
+        instructionsExecuted = checkpoint.instructionsExecuted;
+    }
+
+    // runs until BREAK, until limit instructions have executed or until BRANCH_ONLY_LIMIT jumps and branches
+    // ran with no instruction between them; returns how many instructions this call executed
+    public long run(long limit) {
+        long start = instructionsExecuted;
+        branchesInARow = 0;
+        while (!halted && instructionsExecuted - start < limit && branchesInARow < BRANCH_ONLY_LIMIT) {
+            step();
+        }
+        return instructionsExecuted - start;
+    }
+
+    public void step() {
+        Instruction inst = instructions.get(programCounter);
+
+        // empty and invalid slots are skipped, same as fetch does
+        while (inst == null) {
+            programCounter += 4;
+            if (programCounter < InstructionMemory.BASE_ADDRESS
+                    || programCounter >= InstructionMemory.BASE_ADDRESS + (instructions.size() << 2)) {
+                throw new SimulationException("Program counter left the program: " + programCounter);
+            }
+            inst = instructions.get(programCounter);
+        }
+
+        int nextPc = programCounter + 4;
+        boolean branch = false;
+        switch (inst.opcodeType) {
+            case ADD:
+                registers[inst.rd] = registers[inst.rs] + registers[inst.rt];
+                break;
+            case SUB:
+                registers[inst.rd] = registers[inst.rs] - registers[inst.rt];
+                break;
+            case ADDI:
+                registers[inst.rt] = registers[inst.rs] + inst.immd;
+                break;
+            case SW:
+                data.store(inst.immd + registers[inst.rs], registers[inst.rt]);
+                break;
+            case LW:
+                registers[inst.rt] = data.load(inst.immd + registers[inst.rs]);
+                break;
+            case SLL:
+                registers[inst.rd] = registers[inst.rt] << inst.sa;
+                break;
+            case SRL:
+                registers[inst.rd] = registers[inst.rt] >> inst.sa;
+                break;
+            case MUL:
+                registers[inst.rd] = registers[inst.rs] * registers[inst.rt];
+                break;
+            case MOVZ:
+                if (registers[inst.rt] == 0) {
+                    registers[inst.rd] = registers[inst.rs];
+                }
+                break;
+            case J:
+                nextPc = inst.j;
+                branch = true;
+                break;
+            case JR:
+                nextPc = registers[inst.rs];
+                branch = true;
+                break;
+            case BLTZ:
+                if (registers[inst.rs] < 0) {
+                    nextPc += inst.immd;
+                }
+                branch = true;
+                break;
+            case BEQ:
+                if (registers[inst.rs] == registers[inst.rt]) {
+                    nextPc += inst.immd;
+                }
+                branch = true;
+                break;
+            case BREAK:
+                halted = true;
+                return;
+        }
+
+        if (branch) {
+            branchesInARow++;
+        } else {
+            instructionsExecuted++;
+            branchesInARow = 0;
+        }
+        programCounter = nextPc;
+    }
+
+    public void writeState(String filename) {
+        FileWriter writer = Simulator.getFileWriter(filename);
+        Simulator.writeToFile(writer, "Registers:\n"
+                + Simulator.createRegisterString(registers)
+                + "\n"
+                + "Data:"
+                + Simulator.createDataString(data)
+                + "\n");
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new SimulationException("Error closing output file: " + filename, e);
+        }
+    }
+
+    // every register and data word where the two states disagree, empty if they match
+    public static List<String> compare(int[] expectedRegisters, DataMemory expectedData,
+                                       int[] actualRegisters, DataMemory actualData) {
+        List<String> differences = new ArrayList<>();
+        for (int r = 0; r < expectedRegisters.length; r++) {
+            if (expectedRegisters[r] != actualRegisters[r]) {
+                differences.add(String.format("r%02d: expected %s, got %s", r, expectedRegisters[r], actualRegisters[r]));
+            }
+        }
+
+        TreeSet<Integer> addresses = new TreeSet<>();
+        collectAddresses(expectedData, addresses);
+        collectAddresses(actualData, addresses);
+        for (int address : addresses) {
+            int expected = expectedData.load(address);
+            int actual = actualData.load(address);
+            if (expected != actual) {
+                differences.add(String.format("%s: expected %s, got %s", address, expected, actual));
+            }
+        }
+
+        return differences;
+    }
+
+    private static void collectAddresses(DataMemory data, TreeSet<Integer> addresses) {
+        for (int[] run : data.getRuns()) {
+            for (int i = 0; i < run[1]; i++) {
+                addresses.add(run[0] + (i << 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+// A group of identical execution units. Each unit starts at most one op per cycle and holds up to depth
+// ops at once, so depth 1 is an unpipelined unit and depth == latency a fully pipelined one. An op is
+// finished latency cycles after it starts and waits in its unit until there is room in post-ALU.
+public class FunctionalUnitPool {
+    public final String name;
+    private final int latency;
+    private final int depth;
+
+    private final int[] unitOps;
+    private final boolean[] unitStarted;
+
+    // ops in flight, in no particular order; sequence numbers tell which one is oldest
+    private final Instruction[] ops;
+    private final int[] opUnits;
+    private final int[] opCyclesLeft;
+    private final long[] opSequences;
+    private int count = 0;
+
+    public FunctionalUnitPool(String name, int units, int latency, int depth) {
+        this.name = name;
+        this.latency = latency;
+        // a unit can't overlap more ops than it has stages
+        this.depth = Math.min(depth, latency);
+
+        unitOps = new int[units];
+        unitStarted = new boolean[units];
+
+        ops = new Instruction[units * this.depth];
+        opUnits = new int[ops.length];
+        opCyclesLeft = new int[ops.length];
+        opSequences = new long[ops.length];
+    }
+
+    public void startCycle() {
+        for (int u = 0; u < unitStarted.length; u++) {
+            unitStarted[u] = false;
+        }
+    }
+
+    public boolean canAccept() {
+        return findFreeUnit() >= 0;
+    }
+
+    public void dispatch(Instruction instruction, long sequence) {
+        int unit = findFreeUnit();
+        if (unit < 0) {
+            throw new IllegalStateException(name + " has no free unit");
+        }
+
+        unitOps[unit]++;
+        unitStarted[unit] = true;
+
+        ops[count] = instruction;
+        opUnits[count] = unit;
+        opCyclesLeft[count] = latency;
+        opSequences[count] = sequence;
+        count++;
+    }
+
+    // one cycle of execution for everything in flight, including ops started this cycle
+    public void advance() {
+        for (int i = 0; i < count; i++) {
+            if (opCyclesLeft[i] > 0) {
+                opCyclesLeft[i]--;
+            }
+        }
+    }
+
+    // sequence number of the oldest finished op, Long.MAX_VALUE if nothing has finished
+    public long getOldestFinished() {
+        int index = findOldestFinished();
+        return index < 0 ? Long.MAX_VALUE : opSequences[index];
+    }
+
+    public Instruction removeOldestFinished() {
+        int index = findOldestFinished();
+        if (index < 0) {
+            return null;
+        }
+
+        Instruction instruction = ops[index];
+        unitOps[opUnits[index]]--;
+
+        count--;
+        ops[index] = ops[count];
+        opUnits[index] = opUnits[count];
+        opCyclesLeft[index] = opCyclesLeft[count];
+        opSequences[index] = opSequences[count];
+        ops[count] = null;
+        return instruction;
+    }
+
+    // latency still to run over every op in flight, 0 once they have all finished
+    public long getCyclesLeft() {
+        long cyclesLeft = 0;
+        for (int i = 0; i < count; i++) {
+            cyclesLeft += opCyclesLeft[i];
+        }
+        return cyclesLeft;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int findFreeUnit() {
+        for (int u = 0; u < unitOps.length; u++) {
+            if (!unitStarted[u] && unitOps[u] < depth) {
+                return u;
+            }
+        }
+        return -1;
+    }
+
+    private int findOldestFinished() {
+        int oldest = -1;
+        for (int i = 0; i < count; i++) {
+            if (opCyclesLeft[i] == 0 && (oldest < 0 || opSequences[i] < opSequences[oldest])) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,351 @@
+import jdk.jfr.EventType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cost of a run on the host rather than in the simulated machine: wall time per stage, simulated cycles
+// per host second, trace output and allocation on the simulation thread. The pipeline loop times the
+// stages with lap(); every interval the numbers go out as a SimulatorProgressEvent, an optional progress
+// line and an optional MBean, and finish() adds a SimulatorRunEvent for the whole run. Only the
+// simulation thread updates the counts, the MBean getters read what the last interval published.
+public class HostMetrics implements SimulatorMetricsMXBean {
+    public static final long DEFAULT_INTERVAL_NANOS = 1_000_000_000L;
+
+    // nanoTime is only checked against the interval every so many cycles
+    private static final int CHECK_CYCLES = 1024;
+    private static final int STAGES = PerformanceCounters.Stage.values().length;
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private final String program;
+    private final long intervalNanos;
+    private final boolean progressLine;
+    private final boolean recordEvents;
+    private final ObjectName objectName;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final long threadId = Thread.currentThread().getId();
+
+    // running totals
+    private final long[] stageNanos = new long[STAGES];
+    private long traceNanos = 0;
+    private TraceWriter traceWriter;
+    private BinaryTraceWriter binaryWriter;
+
+    private final long startNanos;
+    private final long startAllocated;
+    private final SimulatorRunEvent runEvent;
+
+    // totals at the start of the current interval
+    private SimulatorProgressEvent event;
+    private long intervalStartNanos;
+    private long intervalStartCycle = 0;
+    private long intervalStartAllocated;
+    private final long[] intervalStartStageNanos = new long[STAGES];
+    private long intervalStartTraceNanos = 0;
+    private long intervalStartTraceWait = 0;
+    private long intervalStartTraceBytes = 0;
+
+    // as of the last interval, for the MBean
+    private volatile long cycle;
+    private volatile long instructions;
+    private volatile double cyclesPerSecond;
+    private volatile long[] publishedStageNanos = new long[STAGES];
+    private volatile long publishedTraceNanos;
+    private volatile long publishedTraceWait;
+    private volatile long traceBytes;
+    private volatile long allocated;
+    private volatile long allocationRate;
+
+    // progressSeconds 0 = no progress line, published every DEFAULT_INTERVAL_NANOS for JFR / JMX only
+    public HostMetrics(String program, int progressSeconds, boolean jmx) {
+        this.program = program;
+        this.progressLine = progressSeconds > 0;
+        this.intervalNanos = progressLine ? progressSeconds * 1_000_000_000L : DEFAULT_INTERVAL_NANOS;
+        this.recordEvents = isRecording();
+
+        if (jmx) {
+            try {
+                objectName = new ObjectName("cs286:type=Simulator,name="
+                        + ObjectName.quote(program + "#" + RUNS.incrementAndGet()));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            } catch (JMException e) {
+                throw new SimulationException("Could not register simulator MBean: " + e.getMessage(), e);
+            }
+        } else {
+            objectName = null;
+        }
+
+        runEvent = recordEvents ? new SimulatorRunEvent() : null;
+        if (runEvent != null) {
+            runEvent.begin();
+        }
+        startNanos = System.nanoTime();
+        startAllocated = getThreadAllocatedBytes();
+        startInterval(startNanos);
+    }
+
+    // true while a flight recording has the simulator events enabled
+    public static boolean isRecording() {
+        return EventType.getEventType(SimulatorProgressEvent.class).isEnabled();
+    }
+
+    // the writers whose output and I/O wait count as trace cost, either may be null
+    public void setTraceWriters(TraceWriter traceWriter, BinaryTraceWriter binaryWriter) {
+        this.traceWriter = traceWriter;
+        this.binaryWriter = binaryWriter;
+    }
+
+    // charges the time since start to the stage and returns now, the start of the next lap
+    public long lap(PerformanceCounters.Stage stage, long start) {
+        long now = System.nanoTime();
+        stageNanos[stage.ordinal()] += now - start;
+        return now;
+    }
+
+    public long lapTrace(long start) {
+        long now = System.nanoTime();
+        traceNanos += now - start;
+        return now;
+    }
+
+    public void endCycle(long cycle, long instructions) {
+        if (cycle % CHECK_CYCLES != 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - intervalStartNanos >= intervalNanos) {
+            publish(now, cycle, instructions);
+            startInterval(now);
+        }
+    }
+
+    // publishes the last partial interval and the run as a whole
+    public void finish(long cycle, long instructions) {
+        long now = System.nanoTime();
+        publish(now, cycle, instructions);
+
+        if (runEvent != null && runEvent.shouldCommit()) {
+            long stageTime = 0;
+            for (long nanos : stageNanos) {
+                stageTime += nanos;
+            }
+            runEvent.program = program;
+            runEvent.cycles = cycle;
+            runEvent.instructions = instructions;
+            runEvent.cyclesPerSecond = perSecond(cycle, now - startNanos);
+            runEvent.stageTime = stageTime;
+            runEvent.traceTime = traceNanos;
+            runEvent.traceWaitTime = getTraceWaitNanos();
+            runEvent.traceBytes = getTraceBytesWritten();
+            runEvent.allocated = allocated;
+            runEvent.commit();
+        }
+
+        if (progressLine) {
+            System.out.printf("%s: done, %s cycles in %.1f s, %s%n", program, cycle, (now - startNanos) / 1e9,
+                    createRateString(perSecond(cycle, now - startNanos)));
+        }
+
+        close();
+    }
+
+    // unregisters the MBean, safe to call more than once
+    public void close() {
+        if (objectName == null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new SimulationException("Could not unregister simulator MBean: " + e.getMessage(), e);
+        }
+    }
+
+    private void startInterval(long now) {
+        intervalStartNanos = now;
+        intervalStartCycle = cycle;
+        intervalStartAllocated = allocated;
+        System.arraycopy(stageNanos, 0, intervalStartStageNanos, 0, STAGES);
+        intervalStartTraceNanos = traceNanos;
+        intervalStartTraceWait = getTraceWaitNanos();
+        intervalStartTraceBytes = traceBytes;
+
+        if (recordEvents) {
+            event = new SimulatorProgressEvent();
+            event.begin();
+        }
+    }
+
+    private void publish(long now, long cycle, long instructions) {
+        long elapsed = Math.max(1, now - intervalStartNanos);
+        long traceWait = getTraceWaitNanos();
+
+        this.cycle = cycle;
+        this.instructions = instructions;
+        cyclesPerSecond = perSecond(cycle - intervalStartCycle, elapsed);
+        publishedStageNanos = stageNanos.clone();
+        publishedTraceNanos = traceNanos;
+        publishedTraceWait = traceWait;
+        traceBytes = getTraceBytesWritten();
+        long allocatedNow = getThreadAllocatedBytes() - startAllocated;
+        allocationRate = (long) perSecond(allocatedNow - intervalStartAllocated, elapsed);
+        allocated = allocatedNow;
+
+        if (event != null && event.shouldCommit()) {
+            event.program = program;
+            event.cycle = cycle;
+            event.instructions = instructions;
+            event.cyclesPerSecond = cyclesPerSecond;
+            event.fetchTime = getIntervalNanos(PerformanceCounters.Stage.FETCH);
+            event.issueTime = getIntervalNanos(PerformanceCounters.Stage.ISSUE);
+            event.aluTime = getIntervalNanos(PerformanceCounters.Stage.ALU);
+            event.memTime = getIntervalNanos(PerformanceCounters.Stage.MEM);
+            event.wbTime = getIntervalNanos(PerformanceCounters.Stage.WB);
+            event.commitTime = getIntervalNanos(PerformanceCounters.Stage.COMMIT);
+            event.traceTime = traceNanos - intervalStartTraceNanos;
+            event.traceWaitTime = traceWait - intervalStartTraceWait;
+            event.traceBytes = traceBytes - intervalStartTraceBytes;
+            event.allocationRate = allocationRate;
+            event.commit();
+        }
+        event = null;
+
+        if (progressLine) {
+            System.out.println(createProgressLine(elapsed, traceWait));
+        }
+    }
+
+    // program: cycle N, 1.23 M cycles/s, fetch 10% issue 30% ... trace 40% (I/O wait 5%), trace 12.0 MB, alloc 300.0 MB/s
+    private String createProgressLine(long elapsed, long traceWait) {
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("%s: cycle %s, %s,", program, cycle, createRateString(cyclesPerSecond)));
+        for (PerformanceCounters.Stage stage : PerformanceCounters.Stage.values()) {
+            line.append(String.format(" %s %d%%", stage.name().toLowerCase(), percent(getIntervalNanos(stage), elapsed)));
+        }
+        line.append(String.format(" trace %d%% (I/O wait %d%%), trace %.1f MB, alloc %.1f MB/s",
+                percent(traceNanos - intervalStartTraceNanos, elapsed),
+                percent(traceWait - intervalStartTraceWait, elapsed),
+                traceBytes / 1e6, allocationRate / 1e6));
+        return line.toString();
+    }
+
+    private static String createRateString(double cyclesPerSecond) {
+        return String.format("%.2f M cycles/s", cyclesPerSecond / 1e6);
+    }
+
+    private long getIntervalNanos(PerformanceCounters.Stage stage) {
+        return stageNanos[stage.ordinal()] - intervalStartStageNanos[stage.ordinal()];
+    }
+
+    private long getTraceWaitNanos() {
+        return traceWriter == null ? 0 : traceWriter.getBlockedNanos();
+    }
+
+    private long getTraceBytesWritten() {
+        return (traceWriter == null ? 0 : traceWriter.getCharsWritten())
+                + (binaryWriter == null ? 0 : binaryWriter.getBytesWritten());
+    }
+
+    // -1 where the JVM can't count allocation per thread
+    private long getThreadAllocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+        }
+        return -1;
+    }
+
+    private static double perSecond(long amount, long nanos) {
+        return nanos <= 0 ? 0 : amount * 1e9 / nanos;
+    }
+
+    private static int percent(long part, long whole) {
+        return whole <= 0 ? 0 : (int) Math.round(part * 100.0 / whole);
+    }
+
+    @Override
+    public String getProgram() {
+        return program;
+    }
+
+    @Override
+    public long getCycle() {
+        return cycle;
+    }
+
+    @Override
+    public long getInstructionsCompleted() {
+        return instructions;
+    }
+
+    @Override
+    public double getCyclesPerSecond() {
+        return cyclesPerSecond;
+    }
+
+    @Override
+    public long getFetchMillis() {
+        return getStageMillis(PerformanceCounters.Stage.FETCH);
+    }
+
+    @Override
+    public long getIssueMillis() {
+        return getStageMillis(PerformanceCounters.Stage.ISSUE);
+    }
+
+    @Override
+    public long getAluMillis() {
+        return getStageMillis(PerformanceCounters.Stage.ALU);
+    }
+
+    @Override
+    public long getMemMillis() {
+        return getStageMillis(PerformanceCounters.Stage.MEM);
+    }
+
+    @Override
+    public long getWbMillis() {
+        return getStageMillis(PerformanceCounters.Stage.WB);
+    }
+
+    @Override
+    public long getCommitMillis() {
+        return getStageMillis(PerformanceCounters.Stage.COMMIT);
+    }
+
+    private long getStageMillis(PerformanceCounters.Stage stage) {
+        return publishedStageNanos[stage.ordinal()] / 1_000_000;
+    }
+
+    @Override
+    public long getTraceMillis() {
+        return publishedTraceNanos / 1_000_000;
+    }
+
+    @Override
+    public long getTraceWaitMillis() {
+        return publishedTraceWait / 1_000_000;
+    }
+
+    @Override
+    public long getTraceBytes() {
+        return traceBytes;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocated;
+    }
+
+    @Override
+    public long getAllocationRate() {
+        return allocationRate;
+    }
+}
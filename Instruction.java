@@ -1,8 +1,7 @@
 
-
 public class Instruction {
-    public String binString;
-    public String[] sepStrings;
+    private String binString;
+    private String[] sepStrings;
 
     public int valid;
     public int asInt;
@@ -18,49 +17,143 @@ public class Instruction {
 
     public Opcode opcodeType;
 
+    // set per dynamic instance when register renaming is on (see RegisterRenamer)
+    public int physRs;
+    public int physRt;
+    public int physDest = -1;
+    public int physOld = -1;
+    public int robIndex = -1;
+
+    // what a load read, latched when its memory access completes
+    public int memoryValue;
+
+    // rs / rt as they were when the op started on its functional unit. A shorter op issued later can write
+    // back first, so the result can't read the registers at write back.
+    public int rsOperand;
+    public int rtOperand;
+
+    public Instruction(int word, int memoryAddress) {
+        this.memoryAddress = memoryAddress;
+
+        // same fields as splitMipsCommand, just pulled straight out of the word
+        this.valid = word >>> 31;
+        this.asInt = word;
+        this.opcode = (word >>> 26) & 0x3F;
+        this.rs = (word >>> 21) & 0x1F;
+        this.rt = (word >>> 16) & 0x1F;
+        this.rd = (word >>> 11) & 0x1F;
+        this.sa = (word >>> 6) & 0x1F;
+        this.func = word & 0x3F;
+        this.immd = (short) word;
+        this.j = (word & 0x07FFFFFF) << 2;
+
+        this.opcodeType = decodeOpcodeType();
+
+        // branch offsets are stored in words
+        if (this.opcodeType == Opcode.BLTZ) {
+            this.immd = this.immd << 2;
+        }
+    }
+
+    // copy of the decoded instruction without any rename state, one per dynamic instance
+    public Instruction(Instruction other) {
+        this.binString = other.binString;
+        this.sepStrings = other.sepStrings;
+        this.valid = other.valid;
+        this.asInt = other.asInt;
+        this.opcode = other.opcode;
+        this.rs = other.rs;
+        this.rt = other.rt;
+        this.rd = other.rd;
+        this.sa = other.sa;
+        this.func = other.func;
+        this.immd = other.immd;
+        this.j = other.j;
+        this.memoryAddress = other.memoryAddress;
+        this.opcodeType = other.opcodeType;
+    }
+
     public Instruction(String binString, int memoryAddress) {
+        this(binToDec(binString, true), memoryAddress);
         this.binString = binString;
-        this.sepStrings = splitMipsCommand(binString);
-        this.memoryAddress = memoryAddress;
+    }
+
+    private Opcode decodeOpcodeType() {
+        if (valid == 0) {
+            return Opcode.ERROR;
+        }
+        // nop will look like this: 10000000 00000000 00000000 00000000 which equals the min integer value
+        if (asInt == Integer.MIN_VALUE) {
+            return Opcode.NOP;
+        }
 
-        this.valid = binToDec(sepStrings[0]);
-        this.asInt = binToDec(binString, true);
-        this.opcode = binToDec(sepStrings[0] +sepStrings[1]);
-        this.rs = binToDec(sepStrings[2]);
-        this.rt = binToDec(sepStrings[3]);
-        this.rd = binToDec(sepStrings[4]);
-        this.sa = binToDec(sepStrings[5]);
-        this.func = binToDec(sepStrings[6]);
-        this.immd = binToDec(sepStrings[7], true);
-        this.j = binToDec(sepStrings[8]) << 2;
+        switch (opcode) {
+            case 40:
+                return Opcode.ADDI;
+            case 43:
+                return Opcode.SW;
+            case 35:
+                return Opcode.LW;
+            case 34:
+                return Opcode.J;
+            case 33:
+                return Opcode.BLTZ;
+            case 60:
+                return Opcode.MUL;
+            case 32:
+                switch (func) {
+                    case 0:
+                        return Opcode.SLL;
+                    case 2:
+                        return Opcode.SRL;
+                    case 34:
+                        return Opcode.SUB;
+                    case 32:
+                        return Opcode.ADD;
+                    case 8:
+                        return Opcode.JR;
+                    case 13:
+                        return Opcode.BREAK;
+                    case 10:
+                        return Opcode.MOVZ;
+                }
+        }
+
+        return Opcode.ERROR;
     }
 
-    public static int binToDec(String binstr, boolean canBeNegative) {
-        boolean isNegative = false;
-
-        // Two's Complement
-        if (binstr.charAt(0) == '1' && canBeNegative){
-            binstr = binstr.replaceAll("0", "x");
-            binstr = binstr.replaceAll("1", "0");
-            binstr = binstr.replaceAll("x", "1");
-            isNegative = true;
+    // the string forms are only needed for the disassembly listing, so build them when asked
+    public String getBinString() {
+        if (binString == null) {
+            binString = toBinString(asInt);
         }
+        return binString;
+    }
 
-        double temp = 0;
+    public String[] getSepStrings() {
+        if (sepStrings == null) {
+            sepStrings = splitMipsCommand(getBinString());
+        }
+        return sepStrings;
+    }
 
-        for (int i = 0; i < binstr.length(); i++){
-            if (binstr.charAt(i) == '1'){
-                int len = binstr.length() - 1 - i;
-                temp += Math.pow(2, len);
-            }
+    public static String toBinString(int word) {
+        char[] bits = new char[32];
+        for (int i = 0; i < 32; i++) {
+            bits[i] = ((word >>> (31 - i)) & 1) == 1 ? '1' : '0';
         }
+        return new String(bits);
+    }
+
+    public static int binToDec(String binstr, boolean canBeNegative) {
+        int temp = Integer.parseUnsignedInt(binstr, 2);
 
-        // Finish Two's Complement
-        if (isNegative) {
-            temp = -(temp + 1);
+        // Two's Complement: sign extend anything shorter than a full word
+        if (canBeNegative && binstr.charAt(0) == '1' && binstr.length() < 32) {
+            temp |= -1 << binstr.length();
         }
 
-        return (int) temp;
+        return temp;
     }
 
     public static int binToDec(String binString){
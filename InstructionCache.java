@@ -0,0 +1,64 @@
+// Blocking I-cache in front of instruction memory. A miss stalls fetch for missPenalty cycles, after
+// which the block is installed and fetch retries. tick() has to be called once at the start of every
+// fetch cycle. Each instruction fetched counts once: the miss, not the retry after the fill, and a
+// branch fetch stalls on is not fetched again while it waits.
+public class InstructionCache {
+    private final SetAssociativeCache cache;
+    private final int missPenalty;
+
+    private boolean missPending = false;
+    private int pendingAddress;
+    private int cyclesLeft;
+    // the block of pendingAddress was just installed and the retry of that fetch is still to come
+    private boolean retryPending = false;
+
+    public InstructionCache(int size, int blockSize, int associativity, int missPenalty) {
+        this.cache = new SetAssociativeCache(size, blockSize, associativity);
+        this.missPenalty = missPenalty;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats;
+    }
+
+    public int getCyclesLeft() {
+        return missPending ? cyclesLeft : 0;
+    }
+
+    public void tick() {
+        if (missPending && --cyclesLeft <= 0) {
+            cache.fill(pendingAddress, false);
+            missPending = false;
+            retryPending = true;
+        }
+    }
+
+    // true if the instruction at address can be fetched this cycle
+    public boolean fetch(int address) {
+        if (missPending) {
+            return false;
+        }
+
+        // already counted as the miss, and the fill made the block most recently used
+        if (retryPending) {
+            retryPending = false;
+            if (address == pendingAddress) {
+                return true;
+            }
+        }
+
+        if (cache.access(address, false)) {
+            return true;
+        }
+
+        if (missPenalty == 0) {
+            cache.fill(address, false);
+            return true;
+        }
+
+        missPending = true;
+        pendingAddress = address;
+        cyclesLeft = missPenalty;
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.Arrays;
+
+// Dense instruction store indexed by (pc - BASE_ADDRESS) >> 2.
+// get() returns null for any address that is out of range, misaligned or was never filled
+// (invalid instructions are not stored), which is the same thing fetch used to get from a map miss.
+public class InstructionMemory {
+    public static final int BASE_ADDRESS = 96;
+
+    private Instruction[] slots = new Instruction[64];
+    private int size = 0;
+
+    public Instruction get(int address) {
+        int offset = address - BASE_ADDRESS;
+        if ((offset & 3) != 0) {
+            return null;
+        }
+
+        int index = offset >> 2;
+        if (index < 0 || index >= size) {
+            return null;
+        }
+
+        return slots[index];
+    }
+
+    public void put(int address, Instruction instruction) {
+        int offset = address - BASE_ADDRESS;
+        if (offset < 0 || (offset & 3) != 0) {
+            throw new IllegalArgumentException("Instruction address out of range: " + address);
+        }
+
+        int index = offset >> 2;
+        if (index >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, index + 1));
+        }
+
+        slots[index] = instruction;
+        size = Math.max(size, index + 1);
+    }
+
+    // number of slots from BASE_ADDRESS up to the last stored instruction
+    public int size() {
+        return size;
+    }
+}
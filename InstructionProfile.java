@@ -0,0 +1,135 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+// Per-instruction counters for one run, indexed like InstructionMemory by (pc - BASE_ADDRESS) >> 2:
+// how often each instruction was fetched and issued, how many cycles it sat in pre-issue after the issue
+// stage, what blocked it there, and fetch stall cycles spent on it (branch waits, I-cache misses, ...).
+public class InstructionProfile {
+    private static final PerformanceCounters.Stall[] STALLS = PerformanceCounters.Stall.values();
+
+    private final InstructionMemory instructions;
+    private final long[] fetches;
+    private final long[] issues;
+    private final long[] waitCycles;
+    private final long[][] stallCycles;
+
+    public InstructionProfile(InstructionMemory instructions) {
+        this.instructions = instructions;
+        int slots = instructions.size();
+        fetches = new long[slots];
+        issues = new long[slots];
+        waitCycles = new long[slots];
+        stallCycles = new long[slots][STALLS.length];
+    }
+
+    public void fetched(int address) {
+        int slot = getSlot(address);
+        if (slot >= 0) {
+            fetches[slot]++;
+        }
+    }
+
+    public void issued(int address) {
+        int slot = getSlot(address);
+        if (slot >= 0) {
+            issues[slot]++;
+        }
+    }
+
+    // one cycle left in pre-issue
+    public void waited(int address) {
+        int slot = getSlot(address);
+        if (slot >= 0) {
+            waitCycles[slot]++;
+        }
+    }
+
+    // one cycle the instruction was held up by stall, in pre-issue or at fetch
+    public void stalled(int address, PerformanceCounters.Stall stall) {
+        int slot = getSlot(address);
+        if (slot >= 0) {
+            stallCycles[slot][stall.ordinal()]++;
+        }
+    }
+
+    private int getSlot(int address) {
+        int offset = address - InstructionMemory.BASE_ADDRESS;
+        return offset < 0 || (offset & 3) != 0 || (offset >> 2) >= fetches.length ? -1 : offset >> 2;
+    }
+
+    // the disassembly listing with fetch / issue / wait counts and the stall causes in front of each line
+    public void writeAnnotatedListing(String filename) {
+        try (Writer writer = new FileWriter(filename)) {
+            writer.write("fetch\tissue\twait\tstalls\tinstruction\n");
+            for (int slot = 0; slot < fetches.length; slot++) {
+                int address = InstructionMemory.BASE_ADDRESS + (slot << 2);
+                Instruction instruction = instructions.get(address);
+                if (instruction == null) {
+                    continue;
+                }
+
+                writer.write(String.format("%s\t%s\t%s\t%s\t%s %s\t%s\n", fetches[slot], issues[slot], waitCycles[slot],
+                        getStallSummary(slot), Simulator.createMipsCommandString(instruction.getSepStrings()),
+                        address, Simulator.createReadableMipsInstruction(instruction)));
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Could not write profile: " + filename, e);
+        }
+    }
+
+    // program;address instruction;cause cycles, one line per non-zero cost, for flame graph tools. Pre-issue
+    // cycles with no hazard recorded (waiting behind the issue width) show up as "queued".
+    public void writeCollapsedStacks(String filename, String program) {
+        try (Writer writer = new FileWriter(filename)) {
+            for (int slot = 0; slot < fetches.length; slot++) {
+                int address = InstructionMemory.BASE_ADDRESS + (slot << 2);
+                Instruction instruction = instructions.get(address);
+                if (instruction == null) {
+                    continue;
+                }
+
+                String frame = program + ";" + address + " "
+                        + Simulator.createReadableMipsInstruction(instruction).trim().replaceAll("\\s+", " ") + ";";
+                long attributed = 0;
+                for (PerformanceCounters.Stall stall : STALLS) {
+                    long cycles = stallCycles[slot][stall.ordinal()];
+                    if (cycles > 0) {
+                        writer.write(frame + stall.name().toLowerCase() + " " + cycles + "\n");
+                        if (isIssueStall(stall)) {
+                            attributed += cycles;
+                        }
+                    }
+                }
+                if (waitCycles[slot] > attributed) {
+                    writer.write(frame + "queued " + (waitCycles[slot] - attributed) + "\n");
+                }
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Could not write profile: " + filename, e);
+        }
+    }
+
+    private String getStallSummary(int slot) {
+        StringBuilder summary = new StringBuilder();
+        for (PerformanceCounters.Stall stall : STALLS) {
+            long cycles = stallCycles[slot][stall.ordinal()];
+            if (cycles > 0) {
+                summary.append(summary.length() == 0 ? "" : ",").append(stall.name().toLowerCase()).append('=').append(cycles);
+            }
+        }
+        return summary.length() == 0 ? "-" : summary.toString();
+    }
+
+    // stalls charged while the instruction sat in pre-issue, as opposed to at fetch
+    private static boolean isIssueStall(PerformanceCounters.Stall stall) {
+        switch (stall) {
+            case BRANCH:
+            case ICACHE_MISS:
+            case BACKEND_FULL:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.AbstractList;
+
+// Fixed-capacity ring buffer used for the pipeline latches. Single-threaded and allocation-free on
+// add/poll; get(i) walks it from the head without copying, and remove(i) lets the pre-issue buffer
+// take instructions out of the middle.
+public class InstructionQueue extends AbstractList<Instruction> {
+    private final Instruction[] slots;
+    private int head = 0;
+    private int size = 0;
+
+    public InstructionQueue(int capacity) {
+        this.slots = new Instruction[capacity];
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean isFull() {
+        return size == slots.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Instruction get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return slots[(head + index) % slots.length];
+    }
+
+    @Override
+    public boolean add(Instruction instruction) {
+        if (isFull()) {
+            throw new IllegalStateException("Queue full");
+        }
+
+        slots[(head + size) % slots.length] = instruction;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public Instruction peek() {
+        return size == 0 ? null : slots[head];
+    }
+
+    public Instruction poll() {
+        if (size == 0) {
+            return null;
+        }
+
+        Instruction instruction = slots[head];
+        slots[head] = null;
+        head = (head + 1) % slots.length;
+        size--;
+        modCount++;
+        return instruction;
+    }
+
+    // out-of-order removal, shifts the later entries up by one
+    @Override
+    public Instruction remove(int index) {
+        Instruction instruction = get(index);
+
+        for (int i = index; i < size - 1; i++) {
+            slots[(head + i) % slots.length] = slots[(head + i + 1) % slots.length];
+        }
+        slots[(head + size - 1) % slots.length] = null;
+        size--;
+        modCount++;
+        return instruction;
+    }
+
+    @Override
+    public void clear() {
+        while (size > 0) {
+            poll();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// Loads and stores in program order, from the time they are fetched until they have touched memory.
+// MEM fills in each op's address (and a store's data) as soon as it leaves pre-MEM, so a load only has
+// to wait for older stores whose address is still unknown. A load to the same address as an older store
+// takes the youngest such store's data; any other load goes to memory ahead of the older stores. Stores
+// write memory in order, once they are the oldest entry.
+public class LoadStoreQueue {
+    public static final int BLOCKED = -2;
+    public static final int NO_MATCH = -1;
+
+    // loads that read memory with an older store still queued / loads fed straight from a store /
+    // cycles a load waited on an older store's address
+    public long loadsBypassed = 0;
+    public long loadsForwarded = 0;
+    public long addressStalls = 0;
+
+    private final Instruction[] ops;
+    private final boolean[] addressKnown;
+    private final boolean[] accessing;
+    private final int[] addresses;
+    private final int[] values;
+    private int count = 0;
+
+    public LoadStoreQueue(int size) {
+        ops = new Instruction[size];
+        addressKnown = new boolean[size];
+        accessing = new boolean[size];
+        addresses = new int[size];
+        values = new int[size];
+    }
+
+    public static boolean isMemoryOp(Instruction instruction) {
+        return instruction.opcodeType == Opcode.LW || instruction.opcodeType == Opcode.SW;
+    }
+
+    public boolean isFull() {
+        return count == ops.length;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void add(Instruction instruction) {
+        if (isFull()) {
+            throw new IllegalStateException("Load/store queue is full");
+        }
+
+        ops[count] = instruction;
+        addressKnown[count] = false;
+        accessing[count] = false;
+        count++;
+    }
+
+    // drops a squashed op, which has to be the youngest one
+    public void removeYoungest(Instruction instruction) {
+        if (count == 0 || ops[count - 1] != instruction) {
+            throw new IllegalStateException("Squashed memory op is not the youngest in the load/store queue");
+        }
+        ops[--count] = null;
+    }
+
+    public void setAddress(Instruction instruction, int address, int value) {
+        int index = indexOf(instruction);
+        addresses[index] = address;
+        values[index] = value;
+        addressKnown[index] = true;
+    }
+
+    public Instruction get(int index) {
+        return ops[index];
+    }
+
+    public boolean isAddressKnown(int index) {
+        return addressKnown[index];
+    }
+
+    // the op has gone to the D-cache and is waiting on a miss
+    public boolean isAccessing(int index) {
+        return accessing[index];
+    }
+
+    public void setAccessing(int index) {
+        accessing[index] = true;
+    }
+
+    public int getAddress(int index) {
+        return addresses[index];
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public int indexOf(Instruction instruction) {
+        for (int i = 0; i < count; i++) {
+            if (ops[i] == instruction) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Memory op is not in the load/store queue");
+    }
+
+    public void remove(int index) {
+        for (int i = index; i < count - 1; i++) {
+            ops[i] = ops[i + 1];
+            addressKnown[i] = addressKnown[i + 1];
+            accessing[i] = accessing[i + 1];
+            addresses[i] = addresses[i + 1];
+            values[i] = values[i + 1];
+        }
+        ops[--count] = null;
+    }
+
+    // the youngest older store to the load's address, NO_MATCH if the load can go to memory, or BLOCKED
+    // if an older store's address isn't known yet
+    public int findForwardingStore(int loadIndex) {
+        for (int i = loadIndex - 1; i >= 0; i--) {
+            if (ops[i].opcodeType != Opcode.SW) {
+                continue;
+            }
+            if (!addressKnown[i]) {
+                return BLOCKED;
+            }
+            if (addresses[i] == addresses[loadIndex]) {
+                return i;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    public boolean hasOlderStore(int index) {
+        for (int i = 0; i < index; i++) {
+            if (ops[i].opcodeType == Opcode.SW) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
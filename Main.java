@@ -1,876 +1,442 @@
-import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
 
 public class Main {
 
-    private static final int MAX_REGISTERS = 32;
-    private static final int PRE_ISSUE_SIZE = 4;
-    private static final int PRE_SIZE = 2;
-    private static final int POST_SIZE = 1;
-
-    public static int[] registers = new int[MAX_REGISTERS];
-    public static ArrayList<Integer> dataAddresses = new ArrayList<>();
-    public static Map<Integer, Integer> data = new HashMap<>();
-    public static Map<Integer, Instruction> instructions = new HashMap<>();
-    public static List<Instruction> preIssueBuffer = new ArrayList<>(PRE_ISSUE_SIZE);
-    public static Queue<Instruction> preALU = new LinkedBlockingQueue<>(PRE_SIZE);
-    public static Queue<Instruction> preMem = new LinkedBlockingQueue<>(PRE_SIZE);
-    public static Queue<Instruction> postMem = new LinkedBlockingQueue<>(POST_SIZE);
-    public static Queue<Instruction> postALU = new LinkedBlockingQueue<>(POST_SIZE);
-
-    public static int programCounter = 96;
-    public static boolean procStalled = false;
-    public static boolean programBreaked = false;
-    public static boolean justJumped = false;
+    private static final String USAGE = "Usage: -i filename.bin -o out_name [-m pipeline|functional|compare] [-t off|summary|file|file_and_console] [-f text|binary] [-d keyframe_interval] [-g geometry]\n"
+            + "       [-C json|csv] [-p on|off] [-P progress_seconds] [-J on|off] [-r start.ckpt] [-F fast_forward_instructions] [-c save.ckpt] [-W window_instructions]\n"
+            + "       [-L cycle_limit] [-H hang_cycles]\n"
+            + "       -i filename.bin -o out_name -m sample -F interval -W window_instructions [-j threads] [-g ...]\n"
+            + "       -b directory [-o out_directory] [-j threads] [-t ...] [-f ...] [-d ...] [-g ...] [-P ...] [-J ...]\n"
+            + "       -i filename.bin -o out_name -s sweep_ranges [-j threads] [-g ...]\n"
+            + "instructions (-F, -W, checkpoints, IPC) count everything but jumps, branches and BREAK\n"
+            + "geometry: name=value,... sweep_ranges: name=min:max[:step],... with names "
+            + String.join(", ", SimulatorConfig.GEOMETRY_PARAMETERS);
 
     public static void main(String[] args) {
-        //ARGS: -i, "filename.bin", -o, "out_name"
-        String inputFile = args[1];
-        String outputFilePrefix = args[3];
-        // String inputFile = "t3.bin";
-        // String outputFilePrefix = "t3.pipeline";
-
-        disassembly(inputFile, outputFilePrefix);
-        pipeline(outputFilePrefix);
-    }
-
-    public static void disassembly(String inputFile, String outputFilePrefix){
-        byte[] bytes = readBinaryFile(inputFile);
-        int memoryAddress = 96;
-
-        String[] bytes32 = getBytesAs32Bits(bytes);
-
-        boolean reachedBreak = false;
-
-        FileWriter disFileWriter = getFileWriter(outputFilePrefix  + "_dis.txt");
-
-        System.out.println("======================");
-        System.out.println("      Disassembly     ");
-        System.out.println("======================");
-
-        // first loop (disassembly)
-        for (String word : bytes32) {
-            boolean isInvalid = false;
-
-            if (reachedBreak){
-                int dataValue = Instruction.binToDec(word, true);
-                System.out.printf("%s\t    %s\t %s", word, memoryAddress, dataValue);
-                writeToFile(disFileWriter, String.format("%s\t    %s\t %s", word, memoryAddress, dataValue));
-
-                data.put(memoryAddress, dataValue);
-                dataAddresses.add(memoryAddress);
-            } else {
-                Instruction inst = new Instruction(word, memoryAddress);
-
-                printAndWrite(disFileWriter, createMipsCommandString(inst.sepStrings));
-                printAndWrite(disFileWriter, String.format(" %s\t", memoryAddress));
-
-                if (inst.valid == 0) {
-                    printAndWrite(disFileWriter, " Invalid Instruction");
-                    isInvalid = true;
-                }
-                // nop will look like this: 10000000 00000000 00000000 00000000 which equals the min integer value
-                else if (inst.asInt == Integer.MIN_VALUE){
-                    printAndWrite(disFileWriter, " NOP");
-                    inst.opcodeType = Opcode.NOP;
-                }
-                else if (inst.opcode == 40) {
-                    printAndWrite(disFileWriter, String.format(" ADDI\t R%s, R%s, #%s", inst.rt, inst.rs, inst.immd));
-                    inst.opcodeType = Opcode.ADDI;
-                }
-                else if (inst.opcode == 43) {
-                    printAndWrite(disFileWriter, String.format(" SW  \t R%s, %s(R%s)", inst.rt, inst.immd, inst.rs));
-                    inst.opcodeType = Opcode.SW;
-                }
-                else if (inst.opcode == 32 && inst.func == 0) {
-                    // SLL Command
-                    printAndWrite(disFileWriter, String.format(" SLL\t R%s, R%s, #%s", inst.rd, inst.rt, inst.sa));
-                    inst.opcodeType = Opcode.SLL;
-                    //SLL	R10, R1, #2
-                }
-                else if (inst.opcode == 32 && inst.func == 2){
-                    printAndWrite(disFileWriter, String.format(" SRL\t R%s, R%s, #%s", inst.rd, inst.rt, inst.sa));
-                    inst.opcodeType = Opcode.SRL;
-                }
-                else if (inst.opcode == 32 && inst.func == 34){
-                    printAndWrite(disFileWriter, String.format(" SUB \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    inst.opcodeType = Opcode.SUB;
-                }
-                else if (inst.opcode == 32 && inst.func == 32){
-                    printAndWrite(disFileWriter, String.format(" ADD \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    inst.opcodeType = Opcode.ADD;
-                }
-                else if (inst.opcode == 35) {
-                    printAndWrite(disFileWriter, String.format(" LW  \t R%s, %s(R%s)", inst.rt, inst.immd, inst.rs));
-                    inst.opcodeType = Opcode.LW;
-                }
-                else if (inst.opcode == 34) {
-                    printAndWrite(disFileWriter, String.format(" J  \t #%s", inst.j));
-                    inst.opcodeType = Opcode.J;
-                }
-                else if (inst.opcode == 33) {
-                    inst.immd = inst.immd << 2;
-                    printAndWrite(disFileWriter, String.format(" BLTZ\t R%s, #%s", inst.rs, inst.immd));
-                    inst.opcodeType = Opcode.BLTZ;
-                }
-                else if (inst.opcode == 32 && inst.func == 8){
-                    printAndWrite(disFileWriter, String.format(" JR  \t R%s", inst.rs));
-                    inst.opcodeType = Opcode.JR;
-                }
-                else if (inst.opcode == 32 && inst.func == 13){
-                    printAndWrite(disFileWriter," BREAK");
-                    inst.opcodeType = Opcode.BREAK;
-                    reachedBreak = true;
-                }
-                else if (inst.opcode == 60){
-                    printAndWrite(disFileWriter, String.format(" MUL \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    inst.opcodeType = Opcode.MUL;
-                }
-                else if (inst.opcode == 32 && inst.func == 10){
-                    printAndWrite(disFileWriter, String.format(" MOVZ\t R%s, R%S, R%s", inst.rd, inst.rs, inst.rt));
-                    inst.opcodeType = Opcode.MOVZ;
-                }
-
-                if (inst.opcodeType == null){
-                    inst.opcodeType = Opcode.ERROR;
-                }
-
-                if (!isInvalid){
-                    instructions.put(memoryAddress, inst);
-                }
-            }
-
-            System.out.println();
-            writeToFile(disFileWriter, "\n");
-
-            memoryAddress += 4;
-        }
-
-        try {
-            disFileWriter.close();
-        } catch (IOException e){
-            System.out.println("Error closing disassembly output file");
-            System.exit(-1);
-        }
-    }
-
-    public static void pipeline(String outputFilePrefix){
-        FileWriter pipelineWriter = getFileWriter(outputFilePrefix + "_pipeline.txt");
-
-        boolean isJumping = false;
-        boolean endLoop = false;
-
-        int cycle = 1;
-
-        // i is just for checking for infinite loops
-        int HARD_STOP_CYCLE_LIMIT = 1000;
-        int i = 0;
-
-        while (!endLoop) {
-
-            if (i >= HARD_STOP_CYCLE_LIMIT) {
-                System.out.println("----------ENDLESS LOOP: SHUTTING DOWN---------");
-                System.exit(-1);
-            }
-
-            /*
-            Instruction inst = instructions.get(programCounter);
-
-            if (inst == null){
-                i++;
-                programCounter += 4;
-                continue;
-            }*/
-
-            printAndWrite(pipelineWriter, "--------------------");
-            printAndWrite(pipelineWriter, String.format("\nCycle: %s\t", cycle));
-
-            WB();
-            Mem();
-            ALU();
-            Issue();
-            InstructionFetch();
-
-            printAndWrite(pipelineWriter, "\nPre-Issue Buffer:\n");
-            printAndWrite(pipelineWriter, createBufferString(preIssueBuffer, PRE_ISSUE_SIZE));
-            printAndWrite(pipelineWriter, "Pre_ALU Queue:\n");
-            printAndWrite(pipelineWriter, createBufferString(preALU, PRE_SIZE));
-            printAndWrite(pipelineWriter, "Post_ALU Queue:\n");
-            printAndWrite(pipelineWriter, createBufferString(postALU, POST_SIZE));
-            printAndWrite(pipelineWriter, "Pre_MEM Queue:\n");
-            printAndWrite(pipelineWriter, createBufferString(preMem, PRE_SIZE));
-            printAndWrite(pipelineWriter, "Post_MEM Queue:\n");
-            printAndWrite(pipelineWriter, createBufferString(postMem, POST_SIZE));
-
-            /*
-            switch (inst.opcodeType){
-                case ADD:
-                    printAndWrite(simFileWriter, String.format(" ADD \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    registers[inst.rd] = registers[inst.rs] + registers[inst.rt];
+        //ARGS: -i, "filename.bin", -o, "out_name" [-m pipeline|functional|compare] [-t off|summary|file|file_and_console] [-f text|binary] [-d keyframe_interval]
+        //  or: -b, "directory" [-o, "out_directory"] [-j threads] ...
+        //  or: -i, "filename.bin", -o, "out_name", -s, "issueWidth=1:4,aluUnits=1:2" [-j threads]
+        String inputFile = null;
+        String outputFilePrefix = null;
+        String batchDirectory = null;
+        String sweepSpec = null;
+        String mode = "pipeline";
+        String restoreFile = null;
+        String checkpointFile = null;
+        long fastForward = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        SimulatorConfig config = new SimulatorConfig();
+
+        for (int a = 0; a + 1 < args.length; a += 2) {
+            switch (args[a]) {
+                case "-i":
+                    inputFile = args[a + 1];
                     break;
-                case SUB:
-                    printAndWrite(simFileWriter, String.format(" SUB \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    registers[inst.rd] = registers[inst.rs] - registers[inst.rt];
+                case "-o":
+                    outputFilePrefix = args[a + 1];
                     break;
-                case ADDI:
-                    printAndWrite(simFileWriter, String.format(" ADDI\t R%s, R%s, #%s", inst.rt, inst.rs, inst.immd));
-                    registers[inst.rt] = registers[inst.rs] + inst.immd;
+                case "-b":
+                    batchDirectory = args[a + 1];
                     break;
-                case SW:
-                    printAndWrite(simFileWriter, String.format(" SW  \t R%s, %s(R%s)", inst.rt, inst.immd, inst.rs));
-                    // offset + base (in a register)
-                    int dataAddress = inst.immd + registers[inst.rs];
-                    data.replace(dataAddress, registers[inst.rt]);
+                case "-j":
+                    threads = parsePositiveInt(args[a + 1], "thread count");
                     break;
-                case LW:
-                    printAndWrite(simFileWriter, String.format(" LW  \t R%s, %s(R%s)", inst.rt, inst.immd, inst.rs));
-                    int lwDataAddress = inst.immd + registers[inst.rs];
-                    registers[inst.rt] = data.get(lwDataAddress);
+                case "-t":
+                    config.traceLevel = parseTraceLevel(args[a + 1]);
                     break;
-                case SLL:
-                    printAndWrite(simFileWriter, String.format(" SLL\t R%s, R%s, #%s", inst.rd, inst.rt, inst.sa));
-                    registers[inst.rd] = registers[inst.rt] << inst.sa;
+                case "-f":
+                    config.binaryTrace = parseTraceFormat(args[a + 1]);
                     break;
-                case SRL:
-                    printAndWrite(simFileWriter, String.format(" SRL\t R%s, R%s, #%s", inst.rd, inst.rt, inst.sa));
-                    registers[inst.rd] = registers[inst.rt] >> inst.sa;
+                case "-d":
+                    config.deltaKeyframeInterval = parsePositiveInt(args[a + 1], "keyframe interval");
                     break;
-                case J:
-                    printAndWrite(simFileWriter, String.format(" J  \t #%s", inst.j));
-                    isJumping = true;
-                    simMemoryAddress = inst.j;
+                case "-g":
+                    applyGeometry(config, args[a + 1]);
                     break;
-                case JR:
-                    printAndWrite(simFileWriter, String.format(" JR  \t R%s", inst.rs));
-                    isJumping = true;
-                    simMemoryAddress = registers[inst.rs];
+                case "-s":
+                    sweepSpec = args[a + 1];
                     break;
-                case MUL:
-                    printAndWrite(simFileWriter, String.format(" MUL \t R%s, R%s, R%s", inst.rd, inst.rs, inst.rt));
-                    registers[inst.rd] = registers[inst.rs] * registers[inst.rt];
+                case "-m":
+                    mode = parseMode(args[a + 1]);
                     break;
-                case BLTZ:
-                    printAndWrite(simFileWriter, String.format(" BLTZ\t R%s, #%s", inst.rs, inst.immd));
-                    if (registers[inst.rs] < 0){
-                        isJumping = true;
-                        simMemoryAddress = (simMemoryAddress + 4) + inst.immd;
-                    }
+                case "-C":
+                    config.countersFormat = parseCountersFormat(args[a + 1]);
                     break;
-                case MOVZ:
-                    printAndWrite(simFileWriter, String.format(" MOVZ\t R%s, R%S, R%s", inst.rd, inst.rs, inst.rt));
-                    if (registers[inst.rt] == 0){
-                        registers[inst.rd] = registers[inst.rs];
-                    }
+                case "-p":
+                    config.profile = parseSwitch(args[a + 1], "profile");
                     break;
-                case NOP:
-                    printAndWrite(simFileWriter," NOP");
+                case "-P":
+                    config.progressSeconds = parsePositiveInt(args[a + 1], "progress interval");
                     break;
-                case BREAK:
-                    printAndWrite(simFileWriter," BREAK");
-                    endLoop = true;
+                case "-J":
+                    config.jmx = parseSwitch(args[a + 1], "JMX");
                     break;
+                case "-r":
+                    restoreFile = args[a + 1];
+                    break;
+                case "-c":
+                    checkpointFile = args[a + 1];
+                    break;
+                case "-F":
+                    fastForward = parsePositiveLong(args[a + 1], "fast-forward count");
+                    break;
+                case "-W":
+                    config.windowInstructions = parsePositiveLong(args[a + 1], "window size");
+                    break;
+                case "-L":
+                    config.maxCycles = parseNonNegativeLong(args[a + 1], "cycle limit");
+                    break;
+                case "-H":
+                    config.hangCycles = parsePositiveLong(args[a + 1], "hang detection cycles");
+                    break;
+                default:
+                    System.out.println("Unknown argument: " + args[a]);
+                    System.exit(-1);
             }
+        }
+        // String inputFile = "t3.bin";
+        // String outputFilePrefix = "t3.pipeline";
 
-            printAndWrite(simFileWriter, "\n");
-            printAndWrite(simFileWriter, "\n");
-
-
-            */
-
-            printAndWrite(pipelineWriter, "Registers:\n");
-            printAndWrite(pipelineWriter, createRegisterString());
-            printAndWrite(pipelineWriter, "\n");
-
-            printAndWrite(pipelineWriter, "Data:");
-            printAndWrite(pipelineWriter, createDataString());
-            printAndWrite(pipelineWriter, "\n");
-
-            if(programBreaked && (getAllIssuedInstructions().size() == 0 && preIssueBuffer.size() == 0)) {
-                endLoop = true;
-            }
-            cycle++;
-            i++;
-
-            /*
-            // we don't want to add 4 to the jump address and mess stuff up
-            if (!isJumping){
-                simMemoryAddress += 4;
-            } else {
-                isJumping = false;
-            }*/
+        if (batchDirectory != null) {
+            runBatch(batchDirectory, outputFilePrefix == null ? batchDirectory : outputFilePrefix, config, threads);
+            return;
         }
 
-        try {
-            pipelineWriter.close();
-        } catch (IOException e){
-            System.out.println("Error closing pipeline output file");
+        if (inputFile == null || outputFilePrefix == null) {
+            System.out.println(USAGE);
             System.exit(-1);
         }
-    }
 
-    private static String createBufferString(List<Instruction> buffer, int maxSize) {
-        String temp = "";
-        Instruction[] bufferedInstructions = buffer.toArray(new Instruction[0]);
-        for (int i = 0; i < maxSize; i++){
-            try {
-                Instruction instruction = bufferedInstructions[i];
-                temp += String.format("\tEntry %s:\t[%s]", i, createReadableMipsInstruction(instruction));
-            } catch (IndexOutOfBoundsException e){
-                temp += String.format("\tEntry %s:", i);
+        try {
+            if (sweepSpec != null) {
+                runSweep(inputFile, outputFilePrefix, config, sweepSpec, threads);
+            } else if (mode.equals("sample")) {
+                runSampled(inputFile, outputFilePrefix, config, fastForward, threads);
+            } else {
+                Checkpoint start = getStartState(inputFile, restoreFile, fastForward, checkpointFile);
+                if (mode.equals("functional")) {
+                    runFunctional(inputFile, outputFilePrefix, start);
+                    return;
+                }
+
+                SimulationResult result = new Simulator(config).run(inputFile, outputFilePrefix, start);
+                if (result.instructionCacheStats != null) {
+                    System.out.println("I-cache: " + result.instructionCacheStats);
+                }
+                if (result.dataCacheStats != null) {
+                    System.out.println("D-cache: " + result.dataCacheStats);
+                }
+                if (result.branchPredictor != null) {
+                    printBranchStats(result.branchPredictor);
+                }
+                if (config.forwardAlu == 1 || config.forwardMem == 1) {
+                    System.out.printf("Forwarded operands: post-ALU=%s post-MEM=%s%n",
+                            result.forwardedFromAlu, result.forwardedFromMem);
+                }
+                if (result.loadStoreQueue != null) {
+                    System.out.printf("Load/store queue: loads bypassed=%s forwarded=%s address stalls=%s%n",
+                            result.loadStoreQueue.loadsBypassed, result.loadStoreQueue.loadsForwarded,
+                            result.loadStoreQueue.addressStalls);
+                }
+                if (result.stopReason != null) {
+                    System.out.println(result.stopReason);
+                }
+                if (mode.equals("compare") && !compareWithFunctional(inputFile, start, result)) {
+                    System.exit(-1);
+                }
+                if (result.stopReason != null) {
+                    System.exit(-1);
+                }
             }
-            temp += "\n";
+        } catch (SimulationException e) {
+            System.out.println(e.getMessage());
+            System.exit(-1);
         }
-        return temp;
     }
 
-    private static String createBufferString(Queue<Instruction> queue, int maxSize) {
-        return createBufferString(queue.stream().toList(), maxSize);
-    }
+    private static void runBatch(String batchDirectory, String outputDirectory, SimulatorConfig config, int threads) {
+        // programs run side by side, so nothing gets echoed to the console
+        if (config.traceLevel == TraceWriter.Level.FILE_AND_CONSOLE) {
+            config.traceLevel = TraceWriter.Level.FILE;
+        }
 
-    public static byte[] readBinaryFile(String filename) {
+        List<BatchRunner.Outcome> outcomes;
         try {
-            byte[] bytes = Files.readAllBytes(Paths.get(filename));
-            return bytes;
-        } catch (IOException ex) {
-            System.out.println("Could not read file: " + filename);
+            outcomes = BatchRunner.run(Paths.get(batchDirectory), Paths.get(outputDirectory), config, threads);
+        } catch (SimulationException e) {
+            System.out.println(e.getMessage());
             System.exit(-1);
+            return;
         }
 
-        return null;
-    }
+        boolean failed = false;
+        System.out.println("program\tcycles\tinstructions\tIPC");
+        for (BatchRunner.Outcome outcome : outcomes) {
+            if (outcome.error != null) {
+                System.out.printf("%s\tERROR: %s%n", outcome.inputFile, outcome.error);
+                failed = true;
+            } else {
+                System.out.printf("%s\t%s\t%s\t%.3f%s%n", outcome.inputFile, outcome.result.cycles,
+                        outcome.result.instructionsCompleted, outcome.result.getIPC(),
+                        (outcome.result.instructionCacheStats == null ? "" : "\tI-cache: " + outcome.result.instructionCacheStats)
+                        + (outcome.result.dataCacheStats == null ? "" : "\tD-cache: " + outcome.result.dataCacheStats)
+                        + (outcome.result.stopReason == null ? "" : "\t" + outcome.result.stopReason));
+                failed |= outcome.result.stopReason != null;
+            }
+        }
 
-    public static FileWriter getFileWriter(String filename){
-        try {
-            FileWriter writer = new FileWriter(filename);
-            return writer;
-        } catch (IOException exception){
-            System.out.println("Could not create FileWriter for: " + filename);
+        if (failed) {
             System.exit(-1);
         }
-
-        return null;
     }
 
-    public static void writeToFile(FileWriter writer, String writeString){
-        try {
-            writer.write(writeString);
-        } catch (IOException exception){
-            System.out.println("Could not write string: " + writeString);
-            System.exit(-1);
+    private static void printBranchStats(BranchPredictor predictor) {
+        System.out.printf("Branches: executions=%s predicted=%s accuracy=%.4f squashes=%s%n",
+                predictor.executions, predictor.predictions, predictor.getAccuracy(), predictor.squashes);
+        for (var entry : predictor.getRecords().entrySet()) {
+            BranchPredictor.BranchRecord record = entry.getValue();
+            System.out.printf("\t%s:\texecutions=%s predicted=%s accuracy=%.4f squashes=%s%n",
+                    entry.getKey(), record.executions, record.predictions, record.getAccuracy(), record.squashes);
         }
     }
 
-    public static void printAndWrite(FileWriter writer, String writeString){
-        System.out.print(writeString);
-        writeToFile(writer, writeString);
-    }
+    // where the run starts: a restored checkpoint and/or a functional fast-forward, null for the start of the program
+    private static Checkpoint getStartState(String inputFile, String restoreFile, long fastForward, String checkpointFile) {
+        Checkpoint start = restoreFile == null ? null : Checkpoint.load(restoreFile);
 
-    public static String getByteAsBinaryString(byte b) {
-        return String.format("%8s", Integer.toBinaryString(b & 0xFF)).replace(' ', '0');
-    }
+        if (fastForward > 0) {
+            FunctionalSimulator functional = FunctionalSimulator.load(inputFile);
+            if (start != null) {
+                functional.restore(start);
+            }
+            functional.run(fastForward);
+            start = Checkpoint.capture(functional);
+        }
 
-    public static String[] getBytesAs32Bits(byte[] bytes) {
-        String[] bytes32 = new String[bytes.length / 4];
-        String temp = "";
-        int j = 0;
-        int stringArrayIndex = 0;
-        for (byte b : bytes) {
-            temp += getByteAsBinaryString(b);
-            if (j < 3) {
-                j++;
-            } else {
-                bytes32[stringArrayIndex] = temp;
-                temp = "";
-                j = 0;
-                stringArrayIndex++;
+        if (checkpointFile != null) {
+            if (start == null) {
+                start = Checkpoint.capture(FunctionalSimulator.load(inputFile));
             }
+            start.save(checkpointFile);
+            System.out.println("Checkpoint at instruction " + start.instructionsExecuted + " written to " + checkpointFile);
         }
 
-        return bytes32;
+        return start;
     }
 
-    public static String createMipsCommandString(String[] mips) {
-        String temp = "";
-        for (int i = 0; i < 7; i++) {
-            temp += (mips[i] + " ");
+    private static FunctionalSimulator runFunctionalModel(String inputFile, Checkpoint start) {
+        FunctionalSimulator functional = FunctionalSimulator.load(inputFile);
+        if (start != null) {
+            functional.restore(start);
         }
-
-        return temp;
+        functional.run(FunctionalSimulator.DEFAULT_INSTRUCTION_LIMIT);
+        if (!functional.halted) {
+            throw new SimulationException("No BREAK within " + FunctionalSimulator.DEFAULT_INSTRUCTION_LIMIT + " instructions");
+        }
+        return functional;
     }
 
-    public static String createRegisterString(){
-        String temp = "";
+    private static void runFunctional(String inputFile, String outputFilePrefix, Checkpoint start) {
+        long startTime = System.nanoTime();
+        FunctionalSimulator functional = runFunctionalModel(inputFile, start);
+        long elapsed = System.nanoTime() - startTime;
 
-        temp += String.format("r00:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
-                registers[0], registers[1], registers[2], registers[3],
-                registers[4], registers[5], registers[6], registers[7]
-        );
-
-        temp += String.format("r08:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
-                registers[8], registers[9], registers[10], registers[11],
-                registers[12], registers[13], registers[14], registers[15]
-        );
-
-        temp += String.format("r16:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
-                registers[16], registers[17], registers[18], registers[19],
-                registers[20], registers[21], registers[22], registers[23]
-        );
-
-        temp += String.format("r24:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
-                registers[24], registers[25], registers[26], registers[27],
-                registers[28], registers[29], registers[30], registers[31]
-        );
-
-        return temp;
+        functional.writeState(outputFilePrefix + "_functional.txt");
+        System.out.printf("Executed %s instructions in %.3f ms%n", functional.instructionsExecuted, elapsed / 1e6);
     }
 
-    public static String createDataString(){
-        int maxColumns = 8;
-        String temp = "";
-
-        for (int i = 0; i < data.size(); i++){
-            int dataAddress = dataAddresses.get(i);
-            int datum = data.get(dataAddress);
-
-            if (i % maxColumns == 0){
-                temp += "\n";
-                temp += String.format("%s:\t", dataAddress);
-            }
+    // checks the pipeline's final registers and memory against the functional model
+    private static boolean compareWithFunctional(String inputFile, Checkpoint start, SimulationResult result) {
+        FunctionalSimulator functional = runFunctionalModel(inputFile, start);
+        List<String> differences = FunctionalSimulator.compare(functional.registers, functional.data,
+                result.registers, result.data);
 
-            temp += String.format("%s\t", datum);
+        if (differences.isEmpty()) {
+            System.out.println("Final state matches the functional model");
+            return true;
         }
 
-        return temp;
+        System.out.println("Final state differs from the functional model:");
+        for (String difference : differences) {
+            System.out.println("\t" + difference);
+        }
+        return false;
     }
 
-    public static void InstructionFetch() {
-        // before we fetch an instruction, we have to meet 2 criteria
-        // 1. We must not be stalling
-        // 2. There must be room in the pre issue buffer
-        // 2a. If there is only one slot in pre issue open, we can only fetch one instruction
-
-        if (programBreaked){
-            return;
+    private static void runSampled(String inputFile, String outputFilePrefix, SimulatorConfig config, long interval, int threads) {
+        if (interval == 0 || config.windowInstructions == 0) {
+            System.out.println("Sampling needs -F interval and -W window_instructions");
+            System.exit(-1);
         }
 
-        boolean instructionJumpOrBranch = false;
-
-        // fetch as many instructions as we can
-        // if we want to implement a cache, this must be restructured
-
-        int instructionsToFetch = Math.min(PRE_ISSUE_SIZE - preIssueBuffer.size(), 2);
-
-        for (int i = 0; i < instructionsToFetch; i++){
-            Instruction instruction = instructions.get(programCounter);
-
-            if (instruction == null && !procStalled){
-                programCounter = programCounter + 4;
-                continue;
-            }
-            else if (instruction.opcodeType == Opcode.BREAK && !procStalled){
-                programBreaked = true;
-                return;
+        SimulatorConfig windowConfig = config.copy();
+        windowConfig.traceLevel = TraceWriter.Level.OFF;
+        windowConfig.binaryTrace = false;
+        windowConfig.disassemblyListing = false;
+
+        List<SamplingRunner.Window> windows = SamplingRunner.run(inputFile, windowConfig, interval, threads, outputFilePrefix);
+
+        long cycles = 0;
+        long instructions = 0;
+        boolean failed = false;
+        System.out.println("start\tcycles\tinstructions\tIPC");
+        for (SamplingRunner.Window window : windows) {
+            if (window.error != null) {
+                System.out.printf("%s\tERROR: %s%n", window.startInstruction, window.error);
+                failed = true;
             } else {
-                switch(instruction.opcodeType){
-                    case J:
-                        programCounter = instruction.j;
-                        justJumped = true;
-                        instructionJumpOrBranch = true;
-                        break;
-                    case JR:
-                        if(isThereRBWHazard(getAllIssuedInstructions(), new int[]{instruction.rs}) ||
-                        isThereRBWHazard(preIssueBuffer.stream().toList(), new int[]{instruction.rs})){
-                            procStalled = true;
-                        } else {
-                            procStalled = false;
-                            programCounter = registers[instruction.rs];
-                            justJumped = true;
-                        }
-                        instructionJumpOrBranch = true;
-                        break;
-                    case BLTZ:
-                        if(isThereRBWHazard(getAllIssuedInstructions(), new int[]{instruction.rs}) ||
-                                isThereRBWHazard(preIssueBuffer.stream().toList(), new int[]{instruction.rs})){
-                            procStalled = true;
-                        } else if (registers[instruction.rs] < 0){
-                            procStalled = false;
-                            programCounter = (programCounter) + instruction.immd;
-                            justJumped = false;
-                        } else {
-                            procStalled = false;
-                            justJumped = false;
-                        }
-                        instructionJumpOrBranch = true;
-                        break;
-                    case BEQ:
-                        if(isThereRBWHazard(getAllIssuedInstructions(), new int[]{instruction.rs, instruction.rt}) ||
-                                isThereRBWHazard(preIssueBuffer.stream().toList(), new int[]{instruction.rs, instruction.rt})){
-                            procStalled = true;
-                        } else {
-                            if (registers[instruction.rs] == registers[instruction.rt]){
-                                procStalled = false;
-                                programCounter += instruction.immd;
-                                justJumped = false;
-                            } else {
-                                procStalled = false;
-                                justJumped = false;
-                            }
-                        }
-                        instructionJumpOrBranch = true;
-                        break;
-                }
-                // branch logic
+                System.out.printf("%s\t%s\t%s\t%.3f%s%n", window.startInstruction, window.result.cycles,
+                        window.result.instructionsCompleted, window.result.getIPC(),
+                        window.result.stopReason == null ? "" : "\t" + window.result.stopReason);
+                cycles += window.result.cycles;
+                instructions += window.result.instructionsCompleted;
             }
+        }
+        System.out.printf("Estimated IPC over %s windows: %.3f%n", windows.size(), cycles == 0 ? 0 : (double) instructions / cycles);
 
-            if (!procStalled){
-                if (!instructionJumpOrBranch){
-                    preIssueBuffer.add(instruction);
-                    programCounter += 4;
-                } else if (instructionJumpOrBranch && !justJumped) { // if the first instruction we fetch is a branch or jump but we don't branch, fetch the second instruction next cycle
-                    programCounter += 4;
-                    return;
-                } else if (instructionJumpOrBranch && justJumped){
-                    return;
-                }
-            }
+        if (failed) {
+            System.exit(-1);
         }
     }
 
-    public static void Issue() {
-        int instructionsToIssue = Math.min(preIssueBuffer.size(), 2);
-        /*
-        1. No structural hazards exist (there is room in the pre-mem/pre-ALU destination buffer)
-        if (instructionsToIssue != 0) {
-            continue;
-        }
-        else {
-            exit;
+    private static void runSweep(String inputFile, String outputFilePrefix, SimulatorConfig config, String sweepSpec, int threads) {
+        List<SweepRunner.Range> ranges = null;
+        try {
+            ranges = SweepRunner.parseRanges(sweepSpec);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(-1);
         }
-        2. No WBW hazards exist active instructions (issued but not finished, or
-        earlier no-issued instructions)
-            output dependency write before write
-            Check the previous two instructions and see if their rd register matches the current instructions rd register
-        3. No WBR hazards exist with earlier not-issued instructions (do not check
-        for WBR hazards with instructions that have already been issued. In
-        other words, you only need to check the earlier instructions in the preissue buffer and not in later buffers in the pipeline)
-            Antidependency write before read
-            Look at the previous 2 instructions and see if rs or rt registers match the rd register of the current instruction
-        4. No RBW hazards (true data dependencies) exist with active instructions
-        (all operands are ready)
-            true data dependency read before write
-            Look at the previous 2 registers and see if their rd register matches the current instructions rt or rs register
-        5. A load instruction must wait for all previous stores to be issued
-            bool isSW = false;
-        6. Store instructions must be issued in order
-         */
-        int instructionsIssued = 0;
-
-        Instruction[] preIssueBeginning = preIssueBuffer.toArray(new Instruction[0]);
-        for (Instruction instruction : preIssueBeginning){
-            if (instructionsIssued >= instructionsToIssue){
-                break;
-            }
-
-            // nothing left in pre-issue
-            if (instruction == null){
-                break;
-            }
-
-            int instructionIndexInPreIssue = preIssueBuffer.indexOf(instruction);
-
-            boolean skipInstruction = false;
-
-            if(isRType(instruction) || instruction.opcodeType == Opcode.SW){
-                if (isThereRBWHazard(getAllIssuedInstructions(), new int[]{instruction.rs, instruction.rt})) skipInstruction = true;
-
-                if (isThereWBWHazard(getAllIssuedInstructions(), instruction.rd)) skipInstruction = true;
-            }
-
-            if (isIType(instruction)){
-                if (isThereRBWHazard(getAllIssuedInstructions(), new int[]{instruction.rs})) skipInstruction = true;
 
-                if (isThereWBWHazard(getAllIssuedInstructions(), instruction.rt)) skipInstruction = true;
-            }
+        // sweep points only need their counters, no listings or traces
+        SimulatorConfig sweepConfig = config.copy();
+        sweepConfig.traceLevel = TraceWriter.Level.OFF;
+        sweepConfig.binaryTrace = false;
+        sweepConfig.disassemblyListing = false;
 
-            // assuming we are not at the first buffered instructions, check all instructions before this one
-            // in the pre issue buffer
-            if (instructionIndexInPreIssue != 0){
-                Instruction[] preIssueInstructions = preIssueBuffer.toArray(new Instruction[0]);
-                for (int j = 0; j < instructionIndexInPreIssue; j++){
-                    Instruction currentPreIssueInstruction = preIssueInstructions[j];
-
-                    if (isRType(instruction) || instruction.opcodeType == Opcode.SW){
-                        // true data dependency in pre-issue
-                        if (isThereRBWHazard(currentPreIssueInstruction, new int[]{instruction.rs, instruction.rt})) skipInstruction = true;
-                        // write before read
-                        if (isThereWBRHazard(currentPreIssueInstruction, instruction.rd)) skipInstruction = true;
-
-                        // write before write
-                        if (isThereWBWHazard(currentPreIssueInstruction, instruction.rd)) skipInstruction = true;
-                    }
-                    else {
-                        if (isThereRBWHazard(currentPreIssueInstruction, new int[]{instruction.rs})) skipInstruction = true;
-
-                        if (isThereWBRHazard(currentPreIssueInstruction, instruction.rt)) skipInstruction = true;
-
-                        if (isThereWBWHazard(currentPreIssueInstruction, instruction.rt)) skipInstruction = true;
-                    }
-                }
-
-                if (instruction.opcodeType == Opcode.SW){
-                    for (int j = 0; j < instructionIndexInPreIssue; j++){
-                        Instruction currentPreIssueInstruction = preIssueInstructions[j];
-
-                        // make sure our current SW instruction doesn't 'jump over' earlier SW instructions
-                        if (currentPreIssueInstruction.opcodeType == Opcode.SW){
-                            skipInstruction = true;
-                        }
-                    }
-                }
-            }
-
-            if (skipInstruction){
-                continue;
-            }
-
-            switch (instruction.opcodeType){
-                case SW:
-                case LW:
-                    if (preMem.size() < PRE_SIZE){
-                        preMem.add(instruction);
-                        preIssueBuffer.remove(instruction);
-                        instructionsIssued++;
-                    }
-                    break;
-                default:
-                    if (preALU.size() < PRE_SIZE){
-                        preALU.add(instruction);
-                        preIssueBuffer.remove(instruction);
-
-                        instructionsIssued++;
-                    }
-                    break;
-            }
-        }
+        String csvFile = outputFilePrefix + "_sweep.csv";
+        SweepRunner.run(inputFile, csvFile, sweepConfig, ranges, threads);
+        System.out.println("Sweep results written to " + csvFile);
     }
 
-    public static void Mem() {
-        if(preMem.peek() != null) {
-            Instruction preMemValue = preMem.poll();
-            switch (preMemValue.opcodeType) {
-                case SW:
-                    int dataAddress = preMemValue.immd + registers[preMemValue.rs];
-                    data.replace(dataAddress, registers[preMemValue.rt]);
-                    break;
-                case LW:
-                    postMem.add(preMemValue);
-                    break;
+    public static void applyGeometry(SimulatorConfig config, String spec){
+        try {
+            for (SweepRunner.Range range : SweepRunner.parseRanges(spec)) {
+                config.setGeometry(range.parameter, range.min);
             }
+        } catch (IllegalArgumentException e){
+            System.out.println(e.getMessage());
+            System.exit(-1);
         }
     }
 
-    public static void ALU() {
-        if(preALU.peek() != null) {
-            Instruction preALUValue = preALU.poll();
-            postALU.add(preALUValue);
-        }
-    }
-
-    public static void WB() {
-        if(postALU.peek() != null) {
-            Instruction postALUValue = postALU.poll();
-            switch (postALUValue.opcodeType) {
-                //fix the changing of the register values as they probably will be changed in the issue stage.
-                case ADD:
-                    registers[postALUValue.rd] = registers[postALUValue.rs] + registers[postALUValue.rt];
-                    break;
-                case SUB:
-                    registers[postALUValue.rd] = registers[postALUValue.rs] - registers[postALUValue.rt];
-                    break;
-                case ADDI:
-                    registers[postALUValue.rt] = registers[postALUValue.rs] + postALUValue.immd;
-                    break;
-                case SLL:
-                    registers[postALUValue.rd] = registers[postALUValue.rt] << postALUValue.sa;
-                    break;
-                case SRL:
-                    registers[postALUValue.rd] = registers[postALUValue.rt] >> postALUValue.sa;
-                    break;
-                case MUL:
-                    registers[postALUValue.rd] = registers[postALUValue.rs] * registers[postALUValue.rt];
-                    break;
-                case MOVZ:
-                    if (registers[postALUValue.rt] == 0) {
-                        registers[postALUValue.rd] = registers[postALUValue.rs];
-                    }
-                    break;
-            }
-        }
-        if(postMem.peek() != null) {
-            Instruction postMemValue = postMem.poll();
-
-            if (postMemValue.opcodeType == Opcode.LW){
-                registers[postMemValue.rt] = data.get(postMemValue.immd + registers[postMemValue.rs]);
+    public static int parsePositiveInt(String value, String name){
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
             }
+        } catch (NumberFormatException ignored){
         }
-    }
-
-    public static boolean isRType(Instruction instruction){
-        return instruction.opcodeType == Opcode.ADD
-                || instruction.opcodeType == Opcode.SUB
-                || instruction.opcodeType == Opcode.MUL
-                || instruction.opcodeType == Opcode.MOVZ
-                || instruction.opcodeType == Opcode.SLL
-                || instruction.opcodeType == Opcode.SRL;
-    }
 
-    // I think i got everything
-    // SW should be ignored as it does not write to a register
-    private static boolean isIType(Instruction instruction) {
-        return instruction.opcodeType == Opcode.ADDI
-                || instruction.opcodeType == Opcode.LW;
+        System.out.println("Invalid " + name + ": " + value);
+        System.exit(-1);
+        return 0;
     }
 
-    public static List<Instruction> getAllIssuedInstructions(){
-        Instruction[] preA = preALU.toArray(new Instruction[0]);
-        Instruction[] preM = preMem.toArray(new Instruction[0]);
-        Instruction[] postA = postALU.toArray(new Instruction[0]);
-        Instruction[] postM = postMem.toArray(new Instruction[0]);
-
-        List<Instruction> issuedInstructions = new ArrayList<>();
-
-        for (Instruction i : preA){
-            issuedInstructions.add(i);
-        }
-
-        for (Instruction i : preM){
-            issuedInstructions.add(i);
+    public static String parseMode(String mode){
+        switch (mode.toLowerCase()) {
+            case "pipeline":
+            case "functional":
+            case "compare":
+            case "sample":
+                return mode.toLowerCase();
+            default:
+                System.out.println("Unknown mode: " + mode);
+                System.exit(-1);
         }
 
-        for (Instruction i : postA){
-            issuedInstructions.add(i);
-        }
+        return null;
+    }
 
-        for (Instruction i : postM){
-            issuedInstructions.add(i);
+    public static String parseCountersFormat(String format){
+        switch (format.toLowerCase()) {
+            case "json":
+            case "csv":
+                return format.toLowerCase();
+            default:
+                System.out.println("Unknown counters format: " + format);
+                System.exit(-1);
         }
 
-        return issuedInstructions;
+        return null;
     }
 
-    public static String createReadableMipsInstruction(Instruction instruction){
-        if (instruction.valid == 0){
-            return " Invalid Instruction";
-        }
-
-        switch (instruction.opcodeType){
-            case ADDI:
-                return String.format(" ADDI\t R%s, R%s, #%s", instruction.rt, instruction.rs, instruction.immd);
-            case NOP:
-                return " NOP";
-            case SW:
-                return String.format(" SW  \t R%s, %s(R%s)", instruction.rt, instruction.immd, instruction.rs);
-            case SLL:
-                return String.format(" SLL\t R%s, R%s, #%s", instruction.rd, instruction.rt, instruction.sa);
-            case SRL:
-                return String.format(" SRL\t R%s, R%s, #%s", instruction.rd, instruction.rt, instruction.sa);
-            case SUB:
-                return String.format(" SUB \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
-            case ADD:
-                return String.format(" ADD \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
-            case LW:
-                return String.format(" LW  \t R%s, %s(R%s)", instruction.rt, instruction.immd, instruction.rs);
-            case J:
-                return String.format(" J  \t #%s", instruction.j);
-            case BLTZ:
-                return String.format(" BLTZ\t R%s, #%s", instruction.rs, instruction.immd);
-            case JR:
-                return String.format(" JR  \t R%s", instruction.rs);
-            case BREAK:
-                return " BREAK";
-            case MUL:
-                return String.format(" MUL \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
-            case MOVZ:
-                return String.format(" MOVZ\t R%s, R%S, R%s", instruction.rd, instruction.rs, instruction.rt);
+    public static boolean parseSwitch(String value, String name){
+        switch (value.toLowerCase()) {
+            case "on":
+                return true;
+            case "off":
+                return false;
             default:
-                return " ERROR";
+                System.out.println("Invalid " + name + " setting (on|off): " + value);
+                System.exit(-1);
         }
-    }
 
-    public static boolean isThereRBWHazard(List<Instruction> instructionsToCheck, int[] argumentRegisters){
-        return isThereRBWHazard(instructionsToCheck.toArray(new Instruction[0]), argumentRegisters);
+        return false;
     }
 
-    public static boolean isThereRBWHazard(Instruction[] instructionsToCheck, int[] argumentRegisters){
-        for (Instruction instruction : instructionsToCheck) {
-            // true data dependency (read before write)
-            for (int argumentRegister : argumentRegisters){
-
-                if (isRType(instruction)){
-                    if (argumentRegister == instruction.rd){
-                        return true;
-                    }
-                } else if (isIType(instruction)){
-                    if (argumentRegister == instruction.rt){
-                        return true;
-                    }
-                }
+    public static long parsePositiveLong(String value, String name){
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed > 0) {
+                return parsed;
             }
+        } catch (NumberFormatException ignored){
         }
 
-        return false;
-    }
-
-    public static boolean isThereRBWHazard(Instruction instruction, int[] argumentRegisters){
-        return isThereRBWHazard(new Instruction[]{instruction}, argumentRegisters);
+        System.out.println("Invalid " + name + ": " + value);
+        System.exit(-1);
+        return 0;
     }
 
-    public static boolean isThereWBRHazard(Instruction[] instructionsToCheck, int writeRegister){
-        for (Instruction instructionToCheck : instructionsToCheck){
-            if (isRType(instructionToCheck) || instructionToCheck.opcodeType == Opcode.SW){
-                return writeRegister == instructionToCheck.rs || writeRegister == instructionToCheck.rt;
-            } else if (isIType(instructionToCheck)){
-                return writeRegister == instructionToCheck.rs;
-            } else {
-                /*
-                switch (instructionToCheck.opcodeType){
-                    case LW:
-                        // load word, rs is an argument register, rt is the write register
-                        return writeRegister == instructionToCheck.rs;
-                    case SW:
-                        // store word, no write register, rs and rt are argument registers
-                        return writeRegister == instructionToCheck.rs || writeRegister == instructionToCheck.rt;
-                }*/
+    public static long parseNonNegativeLong(String value, String name){
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed >= 0) {
+                return parsed;
             }
+        } catch (NumberFormatException ignored){
         }
 
-        return false;
+        System.out.println("Invalid " + name + ": " + value);
+        System.exit(-1);
+        return 0;
     }
 
-    public static boolean isThereWBRHazard(Instruction instruction, int writeRegister){
-        return isThereWBRHazard(new Instruction[]{instruction}, writeRegister);
-    }
-
-    public static boolean isThereWBWHazard(Instruction instruction, int writeRegister){
-        if (isRType(instruction)){
-            return writeRegister == instruction.rd;
-        } else if (isIType(instruction) || instruction.opcodeType == Opcode.LW){
-            return writeRegister == instruction.rt;
+    public static boolean parseTraceFormat(String format){
+        switch (format.toLowerCase()) {
+            case "text":
+                return false;
+            case "binary":
+                return true;
+            default:
+                System.out.println("Unknown trace format: " + format);
+                System.exit(-1);
         }
 
         return false;
     }
 
-    public static boolean isThereWBWHazard(List<Instruction> instructions, int writeRegister){
-        for (Instruction instruction : instructions){
-            if (isThereWBWHazard(instruction, writeRegister)) return true;
+    public static TraceWriter.Level parseTraceLevel(String level){
+        try {
+            return TraceWriter.Level.valueOf(level.toUpperCase());
+        } catch (IllegalArgumentException e){
+            System.out.println("Unknown trace level: " + level);
+            System.exit(-1);
         }
 
-        return false;
+        return null;
     }
 }
-
-
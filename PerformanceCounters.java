@@ -0,0 +1,143 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+// Per-cycle accounting for one run: what each stage spent the cycle on (ACTIVE, or why it did nothing),
+// how full each buffer was at the end of every cycle, and the instruction totals. Written out as JSON or
+// CSV after the run.
+public class PerformanceCounters {
+
+    public enum Stage { FETCH, ISSUE, ALU, MEM, WB, COMMIT }
+
+    public enum Stall {
+        ACTIVE,
+        EMPTY,              // nothing to work on
+        HALTED,             // fetch after BREAK
+        PRE_ISSUE_FULL,
+        BRANCH,             // fetch waiting on a branch operand
+        ICACHE_MISS,
+        BACKEND_FULL,       // no ROB slot, physical register or load/store queue entry for the next instruction
+        SPECULATIVE,        // pre-issue only holds instructions past an unresolved branch
+        RBW,
+        WBW,
+        WBR,
+        STORE_ORDER,
+        PRE_ALU_FULL,
+        PRE_MEM_FULL,
+        UNITS_BUSY,         // every functional unit that could take the next op is busy
+        POST_ALU_FULL,
+        POST_MEM_FULL,
+        DCACHE_MISS,
+        STORE_ADDRESS,      // loads waiting for an older store's address
+        ROB_HEAD            // oldest instruction hasn't finished
+    }
+
+    private final long[][] stalls = new long[Stage.values().length][Stall.values().length];
+    private final String[] bufferNames;
+    private final long[][] occupancy;
+    public long cycles = 0;
+
+    // bufferNames / capacities in the order sampleOccupancy() is called with
+    public PerformanceCounters(String[] bufferNames, int[] capacities) {
+        this.bufferNames = bufferNames;
+        this.occupancy = new long[capacities.length][];
+        for (int i = 0; i < capacities.length; i++) {
+            occupancy[i] = new long[capacities[i] + 1];
+        }
+    }
+
+    public void record(Stage stage, Stall stall) {
+        stalls[stage.ordinal()][stall.ordinal()]++;
+    }
+
+    public void sampleOccupancy(int buffer, int size) {
+        occupancy[buffer][size]++;
+    }
+
+    public void endCycle() {
+        cycles++;
+    }
+
+    public long getStallCycles(Stage stage, Stall stall) {
+        return stalls[stage.ordinal()][stall.ordinal()];
+    }
+
+    public void write(String filename, String program, long instructions, long committed) {
+        try (Writer writer = new FileWriter(filename)) {
+            writer.write(filename.endsWith(".csv") ? toCsv(program, instructions, committed) : toJson(program, instructions, committed));
+        } catch (IOException e) {
+            throw new SimulationException("Could not write counters: " + filename, e);
+        }
+    }
+
+    public String toJson(String program, long instructions, long committed) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"program\": \"").append(program.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        json.append("  \"cycles\": ").append(cycles).append(",\n");
+        json.append("  \"instructions\": ").append(instructions).append(",\n");
+        json.append("  \"committed\": ").append(committed).append(",\n");
+        json.append("  \"ipc\": ").append(String.format("%.4f", getIPC(committed))).append(",\n");
+
+        json.append("  \"stalls\": {\n");
+        for (Stage stage : Stage.values()) {
+            json.append("    \"").append(stage.name().toLowerCase()).append("\": {");
+            boolean first = true;
+            for (Stall stall : Stall.values()) {
+                long count = stalls[stage.ordinal()][stall.ordinal()];
+                if (count == 0) {
+                    continue;
+                }
+                json.append(first ? "" : ", ").append('"').append(stall.name().toLowerCase()).append("\": ").append(count);
+                first = false;
+            }
+            json.append(stage.ordinal() == Stage.values().length - 1 ? "}\n" : "},\n");
+        }
+        json.append("  },\n");
+
+        json.append("  \"occupancy\": {\n");
+        for (int buffer = 0; buffer < occupancy.length; buffer++) {
+            json.append("    \"").append(bufferNames[buffer]).append("\": [");
+            for (int size = 0; size < occupancy[buffer].length; size++) {
+                json.append(size == 0 ? "" : ", ").append(occupancy[buffer][size]);
+            }
+            json.append(buffer == occupancy.length - 1 ? "]\n" : "],\n");
+        }
+        json.append("  }\n");
+
+        json.append("}\n");
+        return json.toString();
+    }
+
+    // one value per row: section,name,key,value
+    public String toCsv(String program, long instructions, long committed) {
+        StringBuilder csv = new StringBuilder("section,name,key,value\n");
+        csv.append("total,program,,\"").append(program.replace("\"", "'")).append("\"\n");
+        csv.append("total,cycles,,").append(cycles).append('\n');
+        csv.append("total,instructions,,").append(instructions).append('\n');
+        csv.append("total,committed,,").append(committed).append('\n');
+        csv.append("total,ipc,,").append(String.format("%.4f", getIPC(committed))).append('\n');
+
+        for (Stage stage : Stage.values()) {
+            for (Stall stall : Stall.values()) {
+                long count = stalls[stage.ordinal()][stall.ordinal()];
+                if (count != 0) {
+                    csv.append("stall,").append(stage.name().toLowerCase()).append(',')
+                            .append(stall.name().toLowerCase()).append(',').append(count).append('\n');
+                }
+            }
+        }
+
+        for (int buffer = 0; buffer < occupancy.length; buffer++) {
+            for (int size = 0; size < occupancy[buffer].length; size++) {
+                csv.append("occupancy,").append(bufferNames[buffer]).append(',').append(size).append(',')
+                        .append(occupancy[buffer][size]).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    private double getIPC(long committed) {
+        return cycles == 0 ? 0 : (double) committed / cycles;
+    }
+}
@@ -0,0 +1,131 @@
+// Physical register file, rename table and reorder buffer for the out-of-order back end.
+// Instructions are renamed in program order as they enter pre-issue: sources read the current mapping,
+// a destination gets a fresh physical register (the old mapping is kept so it can be freed at commit or
+// restored on a squash), and every instruction takes a ROB slot. Results land in physical registers
+// when they complete; commit retires the ROB head in order and copies the value to the architectural
+// register file.
+public class RegisterRenamer {
+    private final int[] renameTable;
+    private final int[] physicalValues;
+    private final boolean[] ready;
+    private final int[] freeList;
+    private int freeCount;
+
+    private final Instruction[] rob;
+    private final int[] robArchDest;
+    private final boolean[] robDone;
+    private int robHead = 0;
+    private int robCount = 0;
+
+    public RegisterRenamer(int physicalRegisters, int robSize, int[] registers) {
+        if (physicalRegisters <= registers.length) {
+            throw new IllegalArgumentException("Need more physical registers than the " + registers.length + " architectural ones");
+        }
+
+        renameTable = new int[registers.length];
+        physicalValues = new int[physicalRegisters];
+        ready = new boolean[physicalRegisters];
+        for (int r = 0; r < registers.length; r++) {
+            renameTable[r] = r;
+            physicalValues[r] = registers[r];
+            ready[r] = true;
+        }
+
+        freeList = new int[physicalRegisters];
+        for (int p = physicalRegisters - 1; p >= registers.length; p--) {
+            freeList[freeCount++] = p;
+        }
+
+        rob = new Instruction[robSize];
+        robArchDest = new int[robSize];
+        robDone = new boolean[robSize];
+    }
+
+    public boolean canRename(int destination) {
+        return robCount < rob.length && (destination < 0 || freeCount > 0);
+    }
+
+    // branches resolve in fetch and never enter the ROB, they only need to know where their operands live
+    public void readSources(Instruction instruction) {
+        instruction.physRs = renameTable[instruction.rs];
+        instruction.physRt = renameTable[instruction.rt];
+    }
+
+    public void rename(Instruction instruction, int destination) {
+        readSources(instruction);
+
+        if (destination >= 0) {
+            int physical = freeList[--freeCount];
+            ready[physical] = false;
+            instruction.physOld = renameTable[destination];
+            instruction.physDest = physical;
+            renameTable[destination] = physical;
+        }
+
+        int slot = (robHead + robCount) % rob.length;
+        rob[slot] = instruction;
+        robArchDest[slot] = destination;
+        robDone[slot] = false;
+        instruction.robIndex = slot;
+        robCount++;
+    }
+
+    public boolean isReady(int physical) {
+        return ready[physical];
+    }
+
+    public int read(int physical) {
+        return physicalValues[physical];
+    }
+
+    // result of an instruction with a destination; also completes it in the ROB
+    public void write(Instruction instruction, int value) {
+        physicalValues[instruction.physDest] = value;
+        ready[instruction.physDest] = true;
+        complete(instruction);
+    }
+
+    public void complete(Instruction instruction) {
+        robDone[instruction.robIndex] = true;
+    }
+
+    public int getRobCount() {
+        return robCount;
+    }
+
+    // retires the ROB head if it has completed; returns false if there is nothing to commit
+    public boolean commit(int[] registers) {
+        if (robCount == 0 || !robDone[robHead]) {
+            return false;
+        }
+
+        Instruction instruction = rob[robHead];
+        int destination = robArchDest[robHead];
+        if (destination >= 0) {
+            registers[destination] = physicalValues[instruction.physDest];
+            freeList[freeCount++] = instruction.physOld;
+        }
+
+        rob[robHead] = null;
+        robHead = (robHead + 1) % rob.length;
+        robCount--;
+        return true;
+    }
+
+    // undoes the rename of the youngest instruction, which has to be the one passed in
+    public void squashYoungest(Instruction instruction) {
+        int slot = (robHead + robCount - 1) % rob.length;
+        if (rob[slot] != instruction) {
+            throw new IllegalStateException("Squashed instruction is not the youngest in the ROB");
+        }
+
+        int destination = robArchDest[slot];
+        if (destination >= 0) {
+            renameTable[destination] = instruction.physOld;
+            freeList[freeCount++] = instruction.physDest;
+        }
+
+        rob[slot] = null;
+        robCount--;
+    }
+}
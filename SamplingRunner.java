@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Sampled simulation of a long program. The functional model runs through the program once and takes
+// a checkpoint every interval instructions; a cycle-accurate window is then simulated from each
+// checkpoint, all of them in parallel.
+public class SamplingRunner {
+
+    public static class Window {
+        public final long startInstruction;
+        public final SimulationResult result;
+        public final String error;
+
+        Window(long startInstruction, SimulationResult result, String error) {
+            this.startInstruction = startInstruction;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    // config.windowInstructions bounds each window; checkpoints are also saved as
+    // <checkpointPrefix>_<start instruction>.ckpt unless checkpointPrefix is null
+    public static List<Window> run(String inputFile, SimulatorConfig config, long interval, int threads,
+                                   String checkpointPrefix) {
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        FunctionalSimulator functional = FunctionalSimulator.load(inputFile);
+        while (!functional.halted && functional.instructionsExecuted < FunctionalSimulator.DEFAULT_INSTRUCTION_LIMIT) {
+            Checkpoint checkpoint = Checkpoint.capture(functional);
+            checkpoints.add(checkpoint);
+            if (checkpointPrefix != null) {
+                checkpoint.save(checkpointPrefix + "_" + checkpoint.instructionsExecuted + ".ckpt");
+            }
+            // nothing but jumps and branches for a whole interval, the program will never get further
+            if (functional.run(interval) == 0) {
+                break;
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Window>> futures = new ArrayList<>();
+            for (Checkpoint checkpoint : checkpoints) {
+                futures.add(pool.submit(() -> runWindow(inputFile, config, checkpoint)));
+            }
+
+            List<Window> windows = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    windows.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    windows.add(new Window(checkpoints.get(i).instructionsExecuted, null, String.valueOf(e.getCause())));
+                }
+            }
+            return windows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulationException("Sampled run interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Window runWindow(String inputFile, SimulatorConfig config, Checkpoint checkpoint) {
+        try {
+            return new Window(checkpoint.instructionsExecuted, new Simulator(config).run(inputFile, null, checkpoint), null);
+        } catch (SimulationException e) {
+            return new Window(checkpoint.instructionsExecuted, null, e.getMessage());
+        }
+    }
+}
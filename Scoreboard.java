@@ -0,0 +1,37 @@
+// Pending-writer counts per register. pendingMask has bit r set while at least one writer of register r
+// is outstanding, so a hazard check is a single AND against a register mask.
+public class Scoreboard {
+    private final int[] pendingWriters = new int[32];
+    private int pendingMask = 0;
+
+    public void addWriter(int register) {
+        if (register < 0) {
+            return;
+        }
+
+        pendingWriters[register]++;
+        pendingMask |= 1 << register;
+    }
+
+    public void removeWriter(int register) {
+        if (register < 0) {
+            return;
+        }
+
+        if (--pendingWriters[register] == 0) {
+            pendingMask &= ~(1 << register);
+        }
+    }
+
+    public boolean hasPendingWriter(int register) {
+        return (pendingMask & (1 << register)) != 0;
+    }
+
+    public int getWriterCount(int register) {
+        return pendingWriters[register];
+    }
+
+    public int getPendingMask() {
+        return pendingMask;
+    }
+}
@@ -0,0 +1,97 @@
+// Tag store of a set-associative cache with LRU replacement. It only tracks which blocks are present
+// (and dirty); the data itself stays in InstructionMemory / DataMemory, the caches just model timing.
+public class SetAssociativeCache {
+    private final int offsetBits;
+    private final int sets;
+    private final int associativity;
+
+    private final int[] tags;
+    private final boolean[] valid;
+    private final boolean[] dirty;
+    private final long[] lastUsed;
+    private long useCounter = 0;
+
+    public final CacheStats stats = new CacheStats();
+
+    public SetAssociativeCache(int size, int blockSize, int associativity) {
+        if (blockSize < 4 || Integer.bitCount(blockSize) != 1) {
+            throw new IllegalArgumentException("Cache block size must be a power of two of at least 4: " + blockSize);
+        }
+        if (associativity < 1 || size < blockSize * associativity || size % (blockSize * associativity) != 0) {
+            throw new IllegalArgumentException("Cache size " + size + " is not a multiple of block size x associativity");
+        }
+        int sets = size / (blockSize * associativity);
+        if (Integer.bitCount(sets) != 1) {
+            throw new IllegalArgumentException("Cache set count must be a power of two: " + sets);
+        }
+
+        this.offsetBits = Integer.numberOfTrailingZeros(blockSize);
+        this.sets = sets;
+        this.associativity = associativity;
+
+        this.tags = new int[sets * associativity];
+        this.valid = new boolean[sets * associativity];
+        this.dirty = new boolean[sets * associativity];
+        this.lastUsed = new long[sets * associativity];
+    }
+
+    // hit: updates LRU (and marks the block dirty on a write) and counts the hit. miss: only counts it.
+    public boolean access(int address, boolean write) {
+        int way = find(address);
+        if (way < 0) {
+            stats.misses++;
+            return false;
+        }
+
+        stats.hits++;
+        lastUsed[way] = ++useCounter;
+        if (write) {
+            dirty[way] = true;
+        }
+        return true;
+    }
+
+    public boolean contains(int address) {
+        return find(address) >= 0;
+    }
+
+    // installs the block holding address over the LRU way of its set; returns true if a dirty block was evicted
+    public boolean fill(int address, boolean makeDirty) {
+        int block = address >>> offsetBits;
+        int first = (block & (sets - 1)) * associativity;
+
+        int victim = first;
+        for (int way = first; way < first + associativity; way++) {
+            if (!valid[way]) {
+                victim = way;
+                break;
+            }
+            if (lastUsed[way] < lastUsed[victim]) {
+                victim = way;
+            }
+        }
+
+        boolean writeback = valid[victim] && dirty[victim];
+        if (writeback) {
+            stats.writebacks++;
+        }
+
+        tags[victim] = block;
+        valid[victim] = true;
+        dirty[victim] = makeDirty;
+        lastUsed[victim] = ++useCounter;
+        return writeback;
+    }
+
+    private int find(int address) {
+        int block = address >>> offsetBits;
+        int first = (block & (sets - 1)) * associativity;
+
+        for (int way = first; way < first + associativity; way++) {
+            if (valid[way] && tags[way] == block) {
+                return way;
+            }
+        }
+        return -1;
+    }
+}
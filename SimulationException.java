@@ -0,0 +1,13 @@
+// Thrown by a Simulator when a run can't continue. Main turns it into a message and exit code,
+// batch runs record it against the program and keep going.
+public class SimulationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SimulationException(String message) {
+        super(message);
+    }
+
+    public SimulationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,51 @@
+// Final state and counters of one Simulator run.
+public class SimulationResult {
+    public final String inputFile;
+    public final long cycles;
+    public final long instructionsCompleted;
+    public final int[] registers;
+    public final DataMemory data;
+
+    // null when the run had no I-cache / D-cache
+    public final CacheStats instructionCacheStats;
+    public final CacheStats dataCacheStats;
+
+    // null when the run stalled on branches instead of predicting them
+    public final BranchPredictor branchPredictor;
+
+    // operands issued off the post-ALU / post-MEM bypass paths
+    public final long forwardedFromAlu;
+    public final long forwardedFromMem;
+
+    // null when the run had no load/store queue
+    public final LoadStoreQueue loadStoreQueue;
+
+    // null when the run kept no performance counters
+    public final PerformanceCounters counters;
+
+    // null when the program ran to BREAK, otherwise why the pipeline was stopped (cycle limit or deadlock)
+    public final String stopReason;
+
+    public SimulationResult(String inputFile, long cycles, long instructionsCompleted, int[] registers, DataMemory data,
+                            CacheStats instructionCacheStats, CacheStats dataCacheStats,
+                            BranchPredictor branchPredictor, long forwardedFromAlu, long forwardedFromMem,
+                            LoadStoreQueue loadStoreQueue, PerformanceCounters counters, String stopReason) {
+        this.inputFile = inputFile;
+        this.cycles = cycles;
+        this.instructionsCompleted = instructionsCompleted;
+        this.registers = registers;
+        this.data = data;
+        this.instructionCacheStats = instructionCacheStats;
+        this.dataCacheStats = dataCacheStats;
+        this.branchPredictor = branchPredictor;
+        this.forwardedFromAlu = forwardedFromAlu;
+        this.forwardedFromMem = forwardedFromMem;
+        this.loadStoreQueue = loadStoreQueue;
+        this.counters = counters;
+        this.stopReason = stopReason;
+    }
+
+    public double getIPC() {
+        return cycles == 0 ? 0 : (double) instructionsCompleted / cycles;
+    }
+}
@@ -0,0 +1,1691 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class Simulator {
+
+    private static final int MAX_REGISTERS = 32;
+
+    public int[] registers = new int[MAX_REGISTERS];
+    public DataMemory data = new DataMemory();
+    public InstructionMemory instructions = new InstructionMemory();
+    public InstructionQueue preIssueBuffer;
+    public InstructionQueue preALU;
+    public InstructionQueue preMem;
+    public InstructionQueue postMem;
+    public InstructionQueue postALU;
+
+    // writers sitting in pre-issue, and writers that have issued but not written back yet
+    public Scoreboard preIssueWriters = new Scoreboard();
+    public Scoreboard issuedWriters = new Scoreboard();
+
+    public int programCounter = 96;
+    public boolean procStalled = false;
+    public boolean programBreaked = false;
+    public boolean justJumped = false;
+
+    // instructions that reached write back (or the store queue); jumps and branches are resolved in fetch
+    // and never count, same as FunctionalSimulator.instructionsExecuted
+    public long instructionsCompleted = 0;
+
+    // why the last run stopped before the program finished, null if it ran to BREAK (or to the end of its window)
+    public String stopReason;
+
+    // what the hang detector compares from one cycle to the next, see captureProgress
+    private static final int PROGRESS_FIELDS = 7;
+    private long[] progress = new long[PROGRESS_FIELDS];
+    private long[] lastProgress = new long[PROGRESS_FIELDS];
+
+    // operands issue took off a bypass path instead of the register file
+    public long forwardedFromAlu = 0;
+    public long forwardedFromMem = 0;
+    private final int[] bypassWriters = new int[MAX_REGISTERS];
+
+    // null when fetch goes straight to instruction memory / MEM goes straight to data memory
+    public InstructionCache instructionCache;
+    public DataCache dataCache;
+
+    // null when fetch stalls on unresolved branches. While speculating, the last speculativeCount entries
+    // of pre-issue were fetched past speculativeBranch and can't issue until it resolves.
+    public BranchPredictor branchPredictor;
+    public Instruction speculativeBranch;
+    public int speculativeNextPc;
+    public int speculativeCount = 0;
+
+    // null when issue is limited by the scoreboard; otherwise instructions are renamed as they enter pre-issue,
+    // execute on physical registers and update registers only when they commit in order
+    public RegisterRenamer renamer;
+
+    // null when MEM works straight off pre-MEM; otherwise loads and stores are tracked in program order from fetch
+    public LoadStoreQueue loadStoreQueue;
+
+    // MUL and shifts go to their own units when configured, everything else from pre-ALU uses the ALUs
+    public FunctionalUnitPool aluUnit;
+    public FunctionalUnitPool mulUnit;
+    public FunctionalUnitPool shiftUnit;
+    private final List<FunctionalUnitPool> functionalUnits = new ArrayList<>();
+    private long dispatchSequence = 0;
+
+    // null unless the run writes a counters summary
+    public PerformanceCounters counters;
+    public long instructionsCommitted = 0;
+
+    // null unless the run writes a per-instruction profile
+    public InstructionProfile profile;
+
+    // null unless the host side of the run is being watched (progress line, JMX or a flight recording)
+    public HostMetrics hostMetrics;
+
+    private final SimulatorConfig config;
+
+    public Simulator(SimulatorConfig config) {
+        this.config = config;
+
+        preIssueBuffer = new InstructionQueue(config.preIssueSize);
+        preALU = new InstructionQueue(config.preAluSize);
+        preMem = new InstructionQueue(config.preMemSize);
+        postMem = new InstructionQueue(config.postMemSize);
+        postALU = new InstructionQueue(config.postAluSize);
+
+        aluUnit = new FunctionalUnitPool("ALU", config.aluUnits, config.aluLatency, config.aluDepth);
+        functionalUnits.add(aluUnit);
+        if (config.mulUnits > 0) {
+            mulUnit = new FunctionalUnitPool("MUL", config.mulUnits, config.mulLatency, config.mulDepth);
+            functionalUnits.add(mulUnit);
+        }
+        if (config.shiftUnits > 0) {
+            shiftUnit = new FunctionalUnitPool("shift", config.shiftUnits, config.shiftLatency, config.shiftDepth);
+            functionalUnits.add(shiftUnit);
+        }
+
+        if (config.icacheSize > 0) {
+            try {
+                instructionCache = new InstructionCache(config.icacheSize, config.icacheBlockSize,
+                        config.icacheAssociativity, config.icacheMissPenalty);
+            } catch (IllegalArgumentException e) {
+                throw new SimulationException("Invalid I-cache: " + e.getMessage(), e);
+            }
+        }
+
+        if (config.dcacheSize > 0) {
+            try {
+                dataCache = new DataCache(config.dcacheSize, config.dcacheBlockSize, config.dcacheAssociativity,
+                        config.dcacheMissPenalty, config.dcacheNonBlocking == 1, config.dcacheMshrs);
+            } catch (IllegalArgumentException e) {
+                throw new SimulationException("Invalid D-cache: " + e.getMessage(), e);
+            }
+        }
+
+        if (config.branchPredictor > 0) {
+            try {
+                branchPredictor = new BranchPredictor(config.branchPredictor, config.bpTableBits,
+                        config.bpHistoryBits, config.btbEntries);
+            } catch (IllegalArgumentException e) {
+                throw new SimulationException("Invalid branch predictor: " + e.getMessage(), e);
+            }
+        }
+
+        if (config.renaming == 1) {
+            try {
+                renamer = new RegisterRenamer(config.physicalRegisters, config.robSize, registers);
+            } catch (IllegalArgumentException e) {
+                throw new SimulationException("Invalid register renaming: " + e.getMessage(), e);
+            }
+        }
+
+        if (config.loadStoreQueue == 1) {
+            loadStoreQueue = new LoadStoreQueue(config.lsqSize);
+        }
+
+        if (config.countersFormat != null) {
+            createCounters();
+        }
+    }
+
+    // disassembles and runs one program; a Simulator instance is good for a single run
+    public SimulationResult run(String inputFile, String outputFilePrefix) {
+        return run(inputFile, outputFilePrefix, null);
+    }
+
+    // same, but the pipeline starts from the checkpoint's state instead of the start of the program
+    public SimulationResult run(String inputFile, String outputFilePrefix, Checkpoint start) {
+        disassembly(inputFile, outputFilePrefix);
+        if (start != null) {
+            restore(start);
+        }
+        if (config.profile) {
+            profile = new InstructionProfile(instructions);
+        }
+        if (config.progressSeconds > 0 || config.jmx || HostMetrics.isRecording()) {
+            hostMetrics = new HostMetrics(Paths.get(inputFile).getFileName().toString(), config.progressSeconds, config.jmx);
+        }
+
+        long cycles;
+        try {
+            cycles = pipeline(outputFilePrefix);
+        } finally {
+            if (hostMetrics != null) {
+                hostMetrics.close();
+            }
+        }
+        if (profile != null && outputFilePrefix != null) {
+            profile.writeAnnotatedListing(outputFilePrefix + "_profile.txt");
+            profile.writeCollapsedStacks(outputFilePrefix + "_profile.folded", Paths.get(inputFile).getFileName().toString());
+        }
+        if (counters != null && outputFilePrefix != null) {
+            counters.write(outputFilePrefix + "_counters." + config.countersFormat, inputFile, instructionsCompleted,
+                    renamer == null ? instructionsCompleted : instructionsCommitted);
+        }
+        return new SimulationResult(inputFile, cycles, instructionsCompleted, registers.clone(), data,
+                instructionCache == null ? null : instructionCache.getStats(),
+                dataCache == null ? null : dataCache.getStats(), branchPredictor, forwardedFromAlu, forwardedFromMem,
+                loadStoreQueue, counters, stopReason);
+    }
+
+    // one histogram per buffer in print order, plus the ROB and load/store queue when they exist
+    private void createCounters() {
+        List<String> names = new ArrayList<>(List.of("preIssue", "preAlu", "postAlu", "preMem", "postMem"));
+        List<Integer> capacities = new ArrayList<>();
+        for (int size : config.getBufferSizes()) {
+            capacities.add(size);
+        }
+        if (renamer != null) {
+            names.add("rob");
+            capacities.add(config.robSize);
+        }
+        if (loadStoreQueue != null) {
+            names.add("loadStoreQueue");
+            capacities.add(config.lsqSize);
+        }
+
+        int[] capacityArray = new int[capacities.size()];
+        for (int i = 0; i < capacityArray.length; i++) {
+            capacityArray[i] = capacities.get(i);
+        }
+        counters = new PerformanceCounters(names.toArray(new String[0]), capacityArray);
+    }
+
+    private void sampleCounters() {
+        counters.sampleOccupancy(0, preIssueBuffer.size());
+        counters.sampleOccupancy(1, preALU.size());
+        counters.sampleOccupancy(2, postALU.size());
+        counters.sampleOccupancy(3, preMem.size());
+        counters.sampleOccupancy(4, postMem.size());
+        int next = 5;
+        if (renamer != null) {
+            counters.sampleOccupancy(next++, renamer.getRobCount());
+        }
+        if (loadStoreQueue != null) {
+            counters.sampleOccupancy(next, loadStoreQueue.size());
+        }
+        counters.endCycle();
+    }
+
+    // loads a checkpoint over the program's initial state; the pipeline has to be empty
+    public void restore(Checkpoint checkpoint) {
+        System.arraycopy(checkpoint.registers, 0, registers, 0, MAX_REGISTERS);
+        Checkpoint.copyData(checkpoint.data, data);
+        programCounter = checkpoint.programCounter;
+
+        // the physical registers start out as copies of the architectural ones
+        if (renamer != null) {
+            renamer = new RegisterRenamer(config.physicalRegisters, config.robSize, registers);
+        }
+    }
+
+    public void disassembly(String inputFile, String outputFilePrefix){
+        IntBuffer words = mapBinaryFile(inputFile);
+        int memoryAddress = 96;
+
+        boolean reachedBreak = false;
+
+        // without a listing we only decode the program and load the data
+        FileWriter disFileWriter = config.disassemblyListing ? getFileWriter(outputFilePrefix  + "_dis.txt") : null;
+        boolean listing = disFileWriter != null;
+
+        if (listing && isConsoleEchoEnabled()) {
+            System.out.println("======================");
+            System.out.println("      Disassembly     ");
+            System.out.println("======================");
+        }
+
+        // first loop (disassembly)
+        while (words.hasRemaining()) {
+            int word = words.get();
+
+            if (reachedBreak){
+                int dataValue = word;
+                if (listing) {
+                    String dataString = String.format("%s\t    %s\t %s", Instruction.toBinString(word), memoryAddress, dataValue);
+                    printAndWrite(disFileWriter, dataString);
+                }
+
+                data.store(memoryAddress, dataValue);
+            } else {
+                Instruction inst = new Instruction(word, memoryAddress);
+
+                if (listing) {
+                    printAndWrite(disFileWriter, createMipsCommandString(inst.getSepStrings()));
+                    printAndWrite(disFileWriter, String.format(" %s\t", memoryAddress));
+
+                    if (inst.valid == 0) {
+                        printAndWrite(disFileWriter, " Invalid Instruction");
+                    }
+                    else if (inst.opcodeType != Opcode.ERROR) {
+                        printAndWrite(disFileWriter, createReadableMipsInstruction(inst));
+                    }
+                }
+
+                if (inst.opcodeType == Opcode.BREAK){
+                    reachedBreak = true;
+                }
+
+                if (inst.valid != 0){
+                    instructions.put(memoryAddress, inst);
+                }
+            }
+
+            if (listing) {
+                printAndWrite(disFileWriter, "\n");
+            }
+
+            memoryAddress += 4;
+        }
+
+        if (!listing) {
+            return;
+        }
+
+        try {
+            disFileWriter.close();
+        } catch (IOException e){
+            throw new SimulationException("Error closing disassembly output file", e);
+        }
+    }
+
+    // returns the number of cycles simulated. The run also stops, with stopReason set, once config.maxCycles
+    // cycles have passed or nothing in the pipeline has changed for config.hangCycles cycles; either way
+    // the trace is finished and the final state is kept as usual.
+    public long pipeline(String outputFilePrefix){
+        // a binary trace replaces the text one, render it later with TraceRenderer
+        TraceWriter pipelineWriter = getTraceWriter(outputFilePrefix + "_pipeline.txt",
+                config.binaryTrace ? TraceWriter.Level.OFF : config.traceLevel);
+        BinaryTraceWriter binaryWriter = config.binaryTrace ? getBinaryTraceWriter(outputFilePrefix + "_pipeline.trc") : null;
+        DeltaTraceFormatter deltaFormatter = config.deltaKeyframeInterval > 0 && pipelineWriter.isCycleTraceEnabled()
+                ? new DeltaTraceFormatter(config.deltaKeyframeInterval, config.getBufferSizes(), registers, data)
+                : null;
+        if (hostMetrics != null) {
+            hostMetrics.setTraceWriters(pipelineWriter, binaryWriter);
+        }
+
+        boolean endLoop = false;
+
+        long cycle = 1;
+
+        // cycles in a row in which nothing in the pipeline changed
+        long unchangedCycles = 0;
+        captureProgress(lastProgress);
+
+        while (!endLoop) {
+
+            long lapStart = hostMetrics == null ? 0 : System.nanoTime();
+            if (renamer != null) {
+                Commit();
+                lapStart = lap(PerformanceCounters.Stage.COMMIT, lapStart);
+            }
+            WB();
+            lapStart = lap(PerformanceCounters.Stage.WB, lapStart);
+            Mem();
+            lapStart = lap(PerformanceCounters.Stage.MEM, lapStart);
+            ALU();
+            lapStart = lap(PerformanceCounters.Stage.ALU, lapStart);
+            Issue();
+            lapStart = lap(PerformanceCounters.Stage.ISSUE, lapStart);
+            InstructionFetch();
+            lapStart = lap(PerformanceCounters.Stage.FETCH, lapStart);
+
+            // only pay for the formatting when the cycle is actually going somewhere
+            if (deltaFormatter != null) {
+                pipelineWriter.write(deltaFormatter.createCycleString(cycle, preIssueBuffer, preALU, postALU, preMem, postMem));
+            } else if (pipelineWriter.isCycleTraceEnabled()) {
+                pipelineWriter.write(createCycleString(cycle));
+            }
+
+            if (binaryWriter != null) {
+                writeBinaryCycle(binaryWriter, cycle);
+            }
+
+            if (hostMetrics != null) {
+                hostMetrics.lapTrace(lapStart);
+                hostMetrics.endCycle(cycle, instructionsCompleted);
+            }
+
+            if (counters != null) {
+                sampleCounters();
+            }
+
+            if(programBreaked && (getIssuedInstructionCount() == 0 && preIssueBuffer.size() == 0)
+                    && (renamer == null || renamer.getRobCount() == 0)
+                    && (loadStoreQueue == null || loadStoreQueue.size() == 0)) {
+                endLoop = true;
+            }
+
+            // a sampling window ends with whatever is still in flight
+            if (config.windowInstructions > 0 && instructionsCompleted >= config.windowInstructions) {
+                endLoop = true;
+            }
+
+            captureProgress(progress);
+            if (Arrays.equals(progress, lastProgress)) {
+                unchangedCycles++;
+            } else {
+                unchangedCycles = 0;
+                long[] swap = lastProgress;
+                lastProgress = progress;
+                progress = swap;
+            }
+
+            if (!endLoop && unchangedCycles >= config.hangCycles && !isInsideProgram(programCounter)) {
+                stopReason = String.format("Hang: the program counter left the program and nothing else has changed for %s cycles (cycle %s, PC %s)",
+                        unchangedCycles, cycle, programCounter);
+                endLoop = true;
+            } else if (!endLoop && unchangedCycles >= config.hangCycles) {
+                stopReason = String.format("Hang: nothing in the pipeline has changed for %s cycles (cycle %s, PC %s, %s)",
+                        unchangedCycles, cycle, programCounter, describeOldestWaiting());
+                endLoop = true;
+            } else if (!endLoop && config.maxCycles > 0 && cycle >= config.maxCycles) {
+                stopReason = String.format("Cycle limit of %s reached before the program finished (PC %s, %s instructions completed)",
+                        config.maxCycles, programCounter, instructionsCompleted);
+                endLoop = true;
+            }
+            cycle++;
+        }
+
+        // summary level only gets the state after the last cycle
+        if (pipelineWriter.getLevel() == TraceWriter.Level.SUMMARY) {
+            pipelineWriter.write(createCycleString(cycle - 1));
+        }
+
+        closeTraceWriter(pipelineWriter);
+        closeBinaryTraceWriter(binaryWriter);
+
+        if (hostMetrics != null) {
+            hostMetrics.finish(cycle - 1, instructionsCompleted);
+        }
+
+        return cycle - 1;
+    }
+
+    // everything that moves while the pipeline makes progress: the completion counts, the buffer, ROB and
+    // load/store queue occupancy, dispatches, and the miss and latency countdowns (so a long miss isn't
+    // mistaken for a hang). The PC is left out: fetch moving it without anything entering pre-issue means
+    // it only finds jumps, branches or empty slots, e.g. a loop of nothing but branches or a PC that has run
+    // off the end of the program.
+    private void captureProgress(long[] state) {
+        state[0] = instructionsCompleted;
+        state[1] = instructionsCommitted;
+        state[2] = dispatchSequence;
+        state[3] = ((long) preIssueBuffer.size() << 32) | ((long) preALU.size() << 24) | ((long) postALU.size() << 16)
+                | ((long) preMem.size() << 8) | postMem.size();
+        state[4] = ((long) (renamer == null ? 0 : renamer.getRobCount()) << 32)
+                | (loadStoreQueue == null ? 0 : loadStoreQueue.size());
+        long cyclesLeft = 0;
+        for (FunctionalUnitPool pool : functionalUnits) {
+            cyclesLeft += pool.getCyclesLeft();
+        }
+        state[5] = cyclesLeft;
+        state[6] = (instructionCache == null ? 0 : instructionCache.getCyclesLeft())
+                + (dataCache == null ? 0 : dataCache.getCyclesLeft());
+    }
+
+    private boolean isInsideProgram(int address) {
+        return address >= InstructionMemory.BASE_ADDRESS
+                && address < InstructionMemory.BASE_ADDRESS + (instructions.size() << 2);
+    }
+
+    // the instruction a hang is most likely waiting behind, for the deadlock report
+    private String describeOldestWaiting() {
+        InstructionQueue[] buffers = {postMem, postALU, preMem, preALU, preIssueBuffer};
+        String[] names = {"post-MEM", "post-ALU", "pre-MEM", "pre-ALU", "pre-issue"};
+        for (int b = 0; b < buffers.length; b++) {
+            if (buffers[b].size() > 0) {
+                Instruction oldest = buffers[b].peek();
+                return String.format("oldest in %s:%s at %s", names[b], createReadableMipsInstruction(oldest),
+                        oldest.memoryAddress);
+            }
+        }
+        return "every buffer is empty";
+    }
+
+    // stage timing for hostMetrics: charges the time since start to the stage, returns the next start
+    private long lap(PerformanceCounters.Stage stage, long start) {
+        return hostMetrics == null ? 0 : hostMetrics.lap(stage, start);
+    }
+
+    public String createCycleString(long cycle) {
+        return createCycleString(cycle,
+                preIssueBuffer, preALU, postALU, preMem, postMem,
+                config.getBufferSizes(),
+                registers, data);
+    }
+
+    // buffers and bufferSizes are in print order: pre-issue, pre-ALU, post-ALU, pre-MEM, post-MEM
+    public static String createCycleString(long cycle, List<Instruction> preIssue, List<Instruction> preA,
+                                           List<Instruction> postA, List<Instruction> preM, List<Instruction> postM,
+                                           int[] bufferSizes, int[] registerValues, DataMemory dataMemory) {
+        return "--------------------"
+                + String.format("\nCycle: %s\t", cycle)
+                + "\nPre-Issue Buffer:\n"
+                + createBufferString(preIssue, bufferSizes[0])
+                + "Pre_ALU Queue:\n"
+                + createBufferString(preA, bufferSizes[1])
+                + "Post_ALU Queue:\n"
+                + createBufferString(postA, bufferSizes[2])
+                + "Pre_MEM Queue:\n"
+                + createBufferString(preM, bufferSizes[3])
+                + "Post_MEM Queue:\n"
+                + createBufferString(postM, bufferSizes[4])
+                + "Registers:\n"
+                + createRegisterString(registerValues)
+                + "\n"
+                + "Data:"
+                + createDataString(dataMemory)
+                + "\n";
+    }
+
+    public static String createBufferString(List<Instruction> buffer, int maxSize) {
+        String temp = "";
+        for (int i = 0; i < maxSize; i++){
+            if (i < buffer.size()) {
+                temp += String.format("\tEntry %s:\t[%s]", i, createReadableMipsInstruction(buffer.get(i)));
+            } else {
+                temp += String.format("\tEntry %s:", i);
+            }
+            temp += "\n";
+        }
+        return temp;
+    }
+
+    public static byte[] readBinaryFile(String filename) {
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get(filename));
+            return bytes;
+        } catch (IOException ex) {
+            throw new SimulationException("Could not read file: " + filename, ex);
+        }
+    }
+
+    // maps the file and reads big-endian words straight off it, nothing is copied onto the heap
+    public static IntBuffer mapBinaryFile(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new SimulationException("File too large to map: " + filename);
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.BIG_ENDIAN)
+                    .asIntBuffer();
+        } catch (IOException ex) {
+            throw new SimulationException("Could not read file: " + filename, ex);
+        }
+    }
+
+    public static FileWriter getFileWriter(String filename){
+        try {
+            return new FileWriter(filename);
+        } catch (IOException exception){
+            throw new SimulationException("Could not create FileWriter for: " + filename, exception);
+        }
+    }
+
+    public static TraceWriter getTraceWriter(String filename, TraceWriter.Level level){
+        try {
+            return new TraceWriter(filename, level);
+        } catch (IOException exception){
+            throw new SimulationException("Could not create TraceWriter for: " + filename, exception);
+        }
+    }
+
+    public static void closeTraceWriter(TraceWriter writer){
+        try {
+            writer.close();
+        } catch (IOException e){
+            throw new SimulationException("Error closing pipeline output file", e);
+        }
+    }
+
+    public BinaryTraceWriter getBinaryTraceWriter(String filename){
+        try {
+            return new BinaryTraceWriter(filename,
+                    config.getBufferSizes(),
+                    instructions, registers, data);
+        } catch (IOException exception){
+            throw new SimulationException("Could not create BinaryTraceWriter for: " + filename, exception);
+        }
+    }
+
+    public void writeBinaryCycle(BinaryTraceWriter writer, long cycle){
+        try {
+            writer.writeCycle(cycle, preIssueBuffer, preALU, postALU, preMem, postMem);
+        } catch (IOException exception){
+            throw new SimulationException("Could not write binary trace for cycle: " + cycle, exception);
+        }
+    }
+
+    public static void closeBinaryTraceWriter(BinaryTraceWriter writer){
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e){
+            throw new SimulationException("Error closing binary trace file", e);
+        }
+    }
+
+    public static void writeToFile(FileWriter writer, String writeString){
+        try {
+            writer.write(writeString);
+        } catch (IOException exception){
+            throw new SimulationException("Could not write string: " + writeString, exception);
+        }
+    }
+
+    public void printAndWrite(FileWriter writer, String writeString){
+        if (isConsoleEchoEnabled()) {
+            System.out.print(writeString);
+        }
+        writeToFile(writer, writeString);
+    }
+
+    private boolean isConsoleEchoEnabled(){
+        return config.traceLevel == TraceWriter.Level.FILE_AND_CONSOLE;
+    }
+
+    public static String getByteAsBinaryString(byte b) {
+        return String.format("%8s", Integer.toBinaryString(b & 0xFF)).replace(' ', '0');
+    }
+
+    public static String[] getBytesAs32Bits(byte[] bytes) {
+        String[] bytes32 = new String[bytes.length / 4];
+        IntBuffer words = ByteBuffer.wrap(bytes).asIntBuffer();
+        for (int i = 0; i < bytes32.length; i++) {
+            bytes32[i] = Instruction.toBinString(words.get(i));
+        }
+
+        return bytes32;
+    }
+
+    public static String createMipsCommandString(String[] mips) {
+        String temp = "";
+        for (int i = 0; i < 7; i++) {
+            temp += (mips[i] + " ");
+        }
+
+        return temp;
+    }
+
+    public String createRegisterString(){
+        return createRegisterString(registers);
+    }
+
+    public static String createRegisterString(int[] registers){
+        String temp = "";
+
+        temp += String.format("r00:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
+                registers[0], registers[1], registers[2], registers[3],
+                registers[4], registers[5], registers[6], registers[7]
+        );
+
+        temp += String.format("r08:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
+                registers[8], registers[9], registers[10], registers[11],
+                registers[12], registers[13], registers[14], registers[15]
+        );
+
+        temp += String.format("r16:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
+                registers[16], registers[17], registers[18], registers[19],
+                registers[20], registers[21], registers[22], registers[23]
+        );
+
+        temp += String.format("r24:\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t\n",
+                registers[24], registers[25], registers[26], registers[27],
+                registers[28], registers[29], registers[30], registers[31]
+        );
+
+        return temp;
+    }
+
+    public String createDataString(){
+        return createDataString(data);
+    }
+
+    public static String createDataString(DataMemory data){
+        int maxColumns = 8;
+        String temp = "";
+
+        // each contiguous run of written words starts on its own row
+        for (int[] run : data.getRuns()){
+            for (int i = 0; i < run[1]; i++){
+                int dataAddress = run[0] + (i << 2);
+                int datum = data.load(dataAddress);
+
+                if (i % maxColumns == 0){
+                    temp += "\n";
+                    temp += String.format("%s:\t", dataAddress);
+                }
+
+                temp += String.format("%s\t", datum);
+            }
+        }
+
+        return temp;
+    }
+
+    public void InstructionFetch() {
+        int startPc = programCounter;
+        int startSize = preIssueBuffer.size();
+
+        PerformanceCounters.Stall stall = fetch();
+
+        // moving the PC or pre-issue in any way counts as work
+        boolean active = programCounter != startPc || preIssueBuffer.size() != startSize;
+        if (counters != null) {
+            counters.record(PerformanceCounters.Stage.FETCH, active ? PerformanceCounters.Stall.ACTIVE : stall);
+        }
+        if (profile != null && !active) {
+            profile.stalled(programCounter, stall);
+        }
+    }
+
+    // fetches up to fetchWidth instructions, returns what stopped it
+    private PerformanceCounters.Stall fetch() {
+        // before we fetch an instruction, we have to meet 2 criteria
+        // 1. We must not be stalling
+        // 2. There must be room in the pre issue buffer
+        // 2a. If there is only one slot in pre issue open, we can only fetch one instruction
+
+        if (instructionCache != null){
+            instructionCache.tick();
+        }
+
+        if (speculativeBranch != null){
+            resolveSpeculation();
+        }
+
+        if (programBreaked){
+            return PerformanceCounters.Stall.HALTED;
+        }
+
+        boolean instructionJumpOrBranch = false;
+
+        // fetch as many instructions as we can, stopping at an I-cache miss
+
+        int instructionsToFetch = Math.min(config.preIssueSize - preIssueBuffer.size(), config.fetchWidth);
+
+        for (int i = 0; i < instructionsToFetch; i++){
+            // a branch waiting on its operands was fetched already, re-reading it isn't another access
+            if (instructionCache != null && !procStalled && !instructionCache.fetch(programCounter)){
+                return PerformanceCounters.Stall.ICACHE_MISS;
+            }
+
+            // null means the slot is empty, invalid or outside the program
+            Instruction instruction = instructions.get(programCounter);
+
+            if (instruction == null && !procStalled){
+                programCounter = programCounter + 4;
+                continue;
+            }
+            else if (instruction.opcodeType == Opcode.BREAK && !procStalled){
+                // a BREAK on a predicted path waits until we know the path is real
+                if (speculativeBranch == null){
+                    programBreaked = true;
+                    return PerformanceCounters.Stall.HALTED;
+                }
+                return PerformanceCounters.Stall.BRANCH;
+            } else {
+                // every dynamic instance carries its own physical registers / load value
+                if (renamer != null || loadStoreQueue != null){
+                    instruction = new Instruction(instruction);
+                }
+                if (renamer != null){
+                    if (isConditionalOrRegisterBranch(instruction)){
+                        renamer.readSources(instruction);
+                    }
+                }
+
+                switch(instruction.opcodeType){
+                    case J:
+                        programCounter = instruction.j;
+                        justJumped = true;
+                        instructionJumpOrBranch = true;
+                        break;
+                    case JR:
+                        if(hasPendingOperand(instruction)){
+                            if (startSpeculation(instruction)) return PerformanceCounters.Stall.ACTIVE;
+                            procStalled = true;
+                        } else {
+                            procStalled = false;
+                            programCounter = rsValue(instruction);
+                            justJumped = true;
+                        }
+                        instructionJumpOrBranch = true;
+                        break;
+                    case BLTZ:
+                        if(hasPendingOperand(instruction)){
+                            if (startSpeculation(instruction)) return PerformanceCounters.Stall.ACTIVE;
+                            procStalled = true;
+                        } else if (rsValue(instruction) < 0){
+                            procStalled = false;
+                            programCounter = (programCounter) + instruction.immd;
+                            justJumped = false;
+                        } else {
+                            procStalled = false;
+                            justJumped = false;
+                        }
+                        instructionJumpOrBranch = true;
+                        break;
+                    case BEQ:
+                        if(hasPendingOperand(instruction)){
+                            if (startSpeculation(instruction)) return PerformanceCounters.Stall.ACTIVE;
+                            procStalled = true;
+                        } else {
+                            if (rsValue(instruction) == rtValue(instruction)){
+                                procStalled = false;
+                                programCounter += instruction.immd;
+                                justJumped = false;
+                            } else {
+                                procStalled = false;
+                                justJumped = false;
+                            }
+                        }
+                        instructionJumpOrBranch = true;
+                        break;
+                }
+                // branch logic
+                if (branchPredictor != null && !procStalled && isConditionalOrRegisterBranch(instruction)){
+                    branchPredictor.update(instruction, resolveNextPc(instruction));
+                }
+                if (profile != null && !procStalled && instructionJumpOrBranch){
+                    profile.fetched(instruction.memoryAddress);
+                }
+            }
+
+            if (!procStalled){
+                if (!instructionJumpOrBranch){
+                    int destination = getDestinationRegister(instruction);
+                    boolean queued = loadStoreQueue != null && LoadStoreQueue.isMemoryOp(instruction);
+
+                    // no free physical register, ROB slot or load/store queue entry, try again next cycle
+                    if ((renamer != null && !renamer.canRename(destination)) || (queued && loadStoreQueue.isFull())){
+                        return PerformanceCounters.Stall.BACKEND_FULL;
+                    }
+                    if (renamer != null){
+                        renamer.rename(instruction, destination);
+                    }
+                    if (queued){
+                        loadStoreQueue.add(instruction);
+                    }
+                    if (profile != null){
+                        profile.fetched(instruction.memoryAddress);
+                    }
+
+                    preIssueBuffer.add(instruction);
+                    preIssueWriters.addWriter(destination);
+                    if (speculativeBranch != null){
+                        speculativeCount++;
+                    }
+                    programCounter += 4;
+                } else if (instructionJumpOrBranch && !justJumped) { // if the first instruction we fetch is a branch or jump but we don't branch, fetch the second instruction next cycle
+                    programCounter += 4;
+                    return PerformanceCounters.Stall.ACTIVE;
+                } else if (instructionJumpOrBranch && justJumped){
+                    return PerformanceCounters.Stall.ACTIVE;
+                }
+            }
+        }
+
+        if (procStalled){
+            return PerformanceCounters.Stall.BRANCH;
+        }
+        return preIssueBuffer.isFull() ? PerformanceCounters.Stall.PRE_ISSUE_FULL : PerformanceCounters.Stall.ACTIVE;
+    }
+
+    // only one branch is predicted at a time; a JR the BTB hasn't seen yet still stalls
+    private boolean startSpeculation(Instruction branch) {
+        if (branchPredictor == null || speculativeBranch != null || !branchPredictor.canPredict(branch)){
+            return false;
+        }
+
+        if (profile != null){
+            profile.fetched(branch.memoryAddress);
+        }
+
+        speculativeBranch = branch;
+        speculativeNextPc = branchPredictor.predictNextPc(branch);
+        speculativeCount = 0;
+
+        procStalled = false;
+        programCounter = speculativeNextPc;
+        return true;
+    }
+
+    // once every older writer of the branch's operands has written back, check the prediction:
+    // right means the speculative entries become normal ones, wrong squashes them and redirects fetch
+    private void resolveSpeculation() {
+        if (renamer != null){
+            // the branch kept the physical registers it read at fetch, younger renames don't matter
+            if (hasPendingOperand(speculativeBranch)){
+                return;
+            }
+        } else if (hasOlderWriter(speculativeBranch)){
+            return;
+        }
+
+        int actualNextPc = resolveNextPc(speculativeBranch);
+        branchPredictor.update(speculativeBranch, speculativeNextPc, actualNextPc);
+
+        if (actualNextPc != speculativeNextPc){
+            branchPredictor.recordSquash(speculativeBranch);
+            for (; speculativeCount > 0; speculativeCount--){
+                Instruction squashed = preIssueBuffer.remove(preIssueBuffer.size() - 1);
+                preIssueWriters.removeWriter(getDestinationRegister(squashed));
+                if (renamer != null){
+                    renamer.squashYoungest(squashed);
+                }
+                if (loadStoreQueue != null && LoadStoreQueue.isMemoryOp(squashed)){
+                    loadStoreQueue.removeYoungest(squashed);
+                }
+            }
+            programCounter = actualNextPc;
+            procStalled = false;
+        }
+
+        speculativeBranch = null;
+        speculativeCount = 0;
+    }
+
+    // issued writers and non-speculative pre-issue writers of the branch's operands
+    private boolean hasOlderWriter(Instruction branch) {
+        int olderWriters = issuedWriters.getPendingMask();
+        for (int i = 0; i < preIssueBuffer.size() - speculativeCount; i++){
+            int destination = getDestinationRegister(preIssueBuffer.get(i));
+            if (destination >= 0){
+                olderWriters |= 1 << destination;
+            }
+        }
+
+        return (olderWriters & getBranchSourceMask(branch)) != 0;
+    }
+
+    private static int getBranchSourceMask(Instruction branch) {
+        int sources = 1 << branch.rs;
+        if (branch.opcodeType == Opcode.BEQ){
+            sources |= 1 << branch.rt;
+        }
+        return sources;
+    }
+
+    private static boolean isConditionalOrRegisterBranch(Instruction instruction) {
+        return instruction.opcodeType == Opcode.JR
+                || instruction.opcodeType == Opcode.BLTZ
+                || instruction.opcodeType == Opcode.BEQ;
+    }
+
+    // where a branch really goes, from the current register values
+    private int resolveNextPc(Instruction branch) {
+        int pc = branch.memoryAddress;
+        switch (branch.opcodeType){
+            case JR:
+                return rsValue(branch);
+            case BLTZ:
+                return rsValue(branch) < 0 ? pc + branch.immd + 4 : pc + 4;
+            case BEQ:
+                return rsValue(branch) == rtValue(branch) ? pc + branch.immd + 4 : pc + 4;
+            default:
+                return pc + 4;
+        }
+    }
+
+    public void Issue() {
+        int instructionsToIssue = Math.min(preIssueBuffer.size() - speculativeCount, config.issueWidth);
+        /*
+        1. No structural hazards exist (there is room in the pre-mem/pre-ALU destination buffer)
+        if (instructionsToIssue != 0) {
+            continue;
+        }
+        else {
+            exit;
+        }
+        2. No WBW hazards exist active instructions (issued but not finished, or
+        earlier no-issued instructions)
+            output dependency write before write
+            Check the previous two instructions and see if their rd register matches the current instructions rd register
+        3. No WBR hazards exist with earlier not-issued instructions (do not check
+        for WBR hazards with instructions that have already been issued. In
+        other words, you only need to check the earlier instructions in the preissue buffer and not in later buffers in the pipeline)
+            Antidependency write before read
+            Look at the previous 2 instructions and see if rs or rt registers match the rd register of the current instruction
+        4. No RBW hazards (true data dependencies) exist with active instructions
+        (all operands are ready)
+            true data dependency read before write
+            Look at the previous 2 registers and see if their rd register matches the current instructions rt or rs register
+        5. A load instruction must wait for all previous stores to be issued
+            bool isSW = false;
+        6. Store instructions must be issued in order
+         */
+        int instructionsIssued = 0;
+
+        // registers that only wait on results in an enabled bypass buffer; these count as ready
+        int forwardable = renamer == null ? getForwardableMask() : 0;
+        int aluResults = renamer == null && config.forwardAlu == 1 ? getDestinationMask(postALU) : 0;
+
+        // registers still to be read by issued instructions: pre-ALU ops read theirs when they start on a
+        // unit and pre-MEM ops when they reach MEM. Each buffer drains in order, so only a write that goes
+        // down the other pipe can get ahead of them.
+        int aluReads = renamer == null ? getSourceMask(preALU) : 0;
+        int memReads = renamer == null ? getSourceMask(preMem) : 0;
+
+        // registers read / written by earlier instructions that are still waiting in pre-issue
+        int earlierReads = 0;
+        int earlierWrites = 0;
+        boolean earlierStoreWaiting = false;
+
+        // what held up the oldest instruction that couldn't issue
+        PerformanceCounters.Stall issueStall = null;
+
+        int index = 0;
+        while (index < preIssueBuffer.size() - speculativeCount && instructionsIssued < instructionsToIssue){
+            Instruction instruction = preIssueBuffer.get(index);
+
+            int destination = getDestinationRegister(instruction);
+            int destinationMask = destination < 0 ? 0 : 1 << destination;
+            int sourceMask = getSourceMask(instruction);
+            boolean memoryOp = LoadStoreQueue.isMemoryOp(instruction);
+
+            // RBW and WBW against issued and earlier instructions, WBR against earlier instructions and issued
+            // ones that haven't read their operands yet. Renamed instructions only wait for their operands.
+            PerformanceCounters.Stall hazard = null;
+            if (renamer != null){
+                if (!operandsReady(instruction)){
+                    hazard = PerformanceCounters.Stall.RBW;
+                }
+            } else if ((sourceMask & ((issuedWriters.getPendingMask() & ~forwardable) | earlierWrites)) != 0){
+                hazard = PerformanceCounters.Stall.RBW;
+            } else if ((destinationMask & (issuedWriters.getPendingMask() | earlierWrites)) != 0){
+                hazard = PerformanceCounters.Stall.WBW;
+            } else if ((destinationMask & (earlierReads | (memoryOp ? aluReads : memReads))) != 0){
+                hazard = PerformanceCounters.Stall.WBR;
+            }
+
+            // make sure our current SW instruction doesn't 'jump over' earlier SW instructions,
+            // the load/store queue keeps memory in order by itself
+            if (hazard == null && instruction.opcodeType == Opcode.SW && earlierStoreWaiting && loadStoreQueue == null){
+                hazard = PerformanceCounters.Stall.STORE_ORDER;
+            }
+
+            if (hazard == null && !issueInstruction(instruction)){
+                hazard = memoryOp
+                        ? PerformanceCounters.Stall.PRE_MEM_FULL
+                        : PerformanceCounters.Stall.PRE_ALU_FULL;
+            }
+
+            if (hazard == null){
+                if (renamer != null){
+                    countForwardedOperands(instruction);
+                } else {
+                    int forwarded = sourceMask & issuedWriters.getPendingMask() & forwardable;
+                    forwardedFromAlu += Integer.bitCount(forwarded & aluResults);
+                    forwardedFromMem += Integer.bitCount(forwarded & ~aluResults);
+                    // a new writer of the register means the bypassed value isn't the latest one anymore
+                    forwardable &= ~destinationMask;
+                }
+
+                if (memoryOp){
+                    memReads |= sourceMask;
+                } else {
+                    aluReads |= sourceMask;
+                }
+                preIssueBuffer.remove(index);
+                preIssueWriters.removeWriter(destination);
+                issuedWriters.addWriter(destination);
+                instructionsIssued++;
+                if (profile != null){
+                    profile.issued(instruction.memoryAddress);
+                }
+                continue;
+            }
+
+            if (issueStall == null){
+                issueStall = hazard;
+            }
+            if (profile != null){
+                profile.stalled(instruction.memoryAddress, hazard);
+            }
+
+            earlierReads |= sourceMask;
+            earlierWrites |= destinationMask;
+            if (instruction.opcodeType == Opcode.SW){
+                earlierStoreWaiting = true;
+            }
+            index++;
+        }
+
+        if (profile != null){
+            for (int i = 0; i < preIssueBuffer.size(); i++){
+                Instruction waiting = preIssueBuffer.get(i);
+                profile.waited(waiting.memoryAddress);
+                if (i >= preIssueBuffer.size() - speculativeCount){
+                    profile.stalled(waiting.memoryAddress, PerformanceCounters.Stall.SPECULATIVE);
+                }
+            }
+        }
+
+        if (counters != null){
+            if (instructionsIssued > 0){
+                issueStall = PerformanceCounters.Stall.ACTIVE;
+            } else if (issueStall == null){
+                issueStall = speculativeCount > 0 ? PerformanceCounters.Stall.SPECULATIVE : PerformanceCounters.Stall.EMPTY;
+            }
+            counters.record(PerformanceCounters.Stage.ISSUE, issueStall);
+        }
+    }
+
+    // true once every physical register the instruction reads has been written or can be bypassed; MOVZ
+    // also needs the old value of rd since it keeps it when rt isn't zero
+    private boolean operandsReady(Instruction instruction) {
+        if (isRType(instruction) || instruction.opcodeType == Opcode.SW){
+            return getOperandSource(instruction.physRs) != OPERAND_PENDING
+                    && getOperandSource(instruction.physRt) != OPERAND_PENDING
+                    && (instruction.opcodeType != Opcode.MOVZ || getOperandSource(instruction.physOld) != OPERAND_PENDING);
+        } else if (isIType(instruction)){
+            return getOperandSource(instruction.physRs) != OPERAND_PENDING;
+        }
+
+        return true;
+    }
+
+    private void countForwardedOperands(Instruction instruction) {
+        if (isRType(instruction) || instruction.opcodeType == Opcode.SW){
+            countForwardedOperand(instruction.physRs);
+            countForwardedOperand(instruction.physRt);
+            if (instruction.opcodeType == Opcode.MOVZ){
+                countForwardedOperand(instruction.physOld);
+            }
+        } else if (isIType(instruction)){
+            countForwardedOperand(instruction.physRs);
+        }
+    }
+
+    private void countForwardedOperand(int physical) {
+        switch (getOperandSource(physical)){
+            case OPERAND_FROM_ALU:
+                forwardedFromAlu++;
+                break;
+            case OPERAND_FROM_MEM:
+                forwardedFromMem++;
+                break;
+        }
+    }
+
+    private static final int OPERAND_READY = 0;
+    private static final int OPERAND_FROM_ALU = 1;
+    private static final int OPERAND_FROM_MEM = 2;
+    private static final int OPERAND_PENDING = 3;
+
+    // where a renamed operand can be read from this cycle
+    private int getOperandSource(int physical) {
+        if (renamer.isReady(physical)){
+            return OPERAND_READY;
+        } else if (config.forwardAlu == 1 && writesPhysical(postALU, physical)){
+            return OPERAND_FROM_ALU;
+        } else if (config.forwardMem == 1 && writesPhysical(postMem, physical)){
+            return OPERAND_FROM_MEM;
+        }
+        return OPERAND_PENDING;
+    }
+
+    private static boolean writesPhysical(InstructionQueue buffer, int physical) {
+        for (int i = 0; i < buffer.size(); i++){
+            if (buffer.get(i).physDest == physical){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // registers whose every issued writer sits in an enabled bypass buffer
+    private int getForwardableMask() {
+        if (config.forwardAlu == 0 && config.forwardMem == 0){
+            return 0;
+        }
+
+        Arrays.fill(bypassWriters, 0);
+        int candidates = 0;
+        if (config.forwardAlu == 1){
+            candidates |= countBypassWriters(postALU);
+        }
+        if (config.forwardMem == 1){
+            candidates |= countBypassWriters(postMem);
+        }
+
+        int forwardable = 0;
+        for (int mask = candidates; mask != 0; mask &= mask - 1){
+            int register = Integer.numberOfTrailingZeros(mask);
+            if (bypassWriters[register] == issuedWriters.getWriterCount(register)){
+                forwardable |= 1 << register;
+            }
+        }
+        return forwardable;
+    }
+
+    private int countBypassWriters(InstructionQueue buffer) {
+        int mask = 0;
+        for (int i = 0; i < buffer.size(); i++){
+            int destination = getDestinationRegister(buffer.get(i));
+            if (destination >= 0){
+                bypassWriters[destination]++;
+                mask |= 1 << destination;
+            }
+        }
+        return mask;
+    }
+
+    private static int getSourceMask(InstructionQueue buffer) {
+        int mask = 0;
+        for (int i = 0; i < buffer.size(); i++){
+            mask |= getSourceMask(buffer.get(i));
+        }
+        return mask;
+    }
+
+    private static int getDestinationMask(InstructionQueue buffer) {
+        int mask = 0;
+        for (int i = 0; i < buffer.size(); i++){
+            int destination = getDestinationRegister(buffer.get(i));
+            if (destination >= 0){
+                mask |= 1 << destination;
+            }
+        }
+        return mask;
+    }
+
+    // moves the instruction into pre-MEM or pre-ALU if there is room (no structural hazard)
+    private boolean issueInstruction(Instruction instruction) {
+        switch (instruction.opcodeType){
+            case SW:
+            case LW:
+                if (!preMem.isFull()){
+                    preMem.add(instruction);
+                    return true;
+                }
+                return false;
+            default:
+                if (!preALU.isFull()){
+                    preALU.add(instruction);
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    public void Mem() {
+        if (counters == null) {
+            accessMemory();
+            return;
+        }
+
+        int startPreMem = preMem.size();
+        int startPostMem = postMem.size();
+        int startOutstanding = dataCache == null ? 0 : dataCache.getOutstandingCount();
+        int startQueued = loadStoreQueue == null ? 0 : loadStoreQueue.size();
+        long startAddressStalls = loadStoreQueue == null ? 0 : loadStoreQueue.addressStalls;
+
+        accessMemory();
+
+        int outstanding = dataCache == null ? 0 : dataCache.getOutstandingCount();
+        PerformanceCounters.Stall stall;
+        if (preMem.size() != startPreMem || postMem.size() != startPostMem || outstanding != startOutstanding
+                || (loadStoreQueue != null && loadStoreQueue.size() != startQueued)) {
+            stall = PerformanceCounters.Stall.ACTIVE;
+        } else if (loadStoreQueue != null && loadStoreQueue.addressStalls != startAddressStalls) {
+            stall = PerformanceCounters.Stall.STORE_ADDRESS;
+        } else if (outstanding > 0 || preMem.peek() != null && !postMem.isFull()) {
+            stall = PerformanceCounters.Stall.DCACHE_MISS;
+        } else if (preMem.peek() != null) {
+            stall = PerformanceCounters.Stall.POST_MEM_FULL;
+        } else {
+            stall = PerformanceCounters.Stall.EMPTY;
+        }
+        counters.record(PerformanceCounters.Stage.MEM, stall);
+    }
+
+    private void accessMemory() {
+        // misses that have waited out their penalty leave the MEM stage first
+        if (dataCache != null) {
+            dataCache.tick();
+
+            Instruction finished;
+            while ((finished = dataCache.peekCompleted()) != null) {
+                if (finished.opcodeType == Opcode.LW && postMem.isFull()) {
+                    break;
+                }
+
+                int address = dataCache.getCompletedAddress();
+                int value = dataCache.getCompletedValue();
+                dataCache.removeCompleted();
+                if (loadStoreQueue != null) {
+                    completeQueuedAccess(finished, address, value);
+                } else {
+                    completeMemoryOp(finished, address, value);
+                }
+            }
+        }
+
+        if (loadStoreQueue != null) {
+            queuedMem();
+            return;
+        }
+
+        // one memory op per MEM unit, loads also need a free post-MEM slot
+        for (int unit = 0; unit < config.memUnits && preMem.peek() != null; unit++) {
+            Instruction preMemValue = preMem.peek();
+            if (preMemValue.opcodeType == Opcode.LW && postMem.isFull()) {
+                break;
+            }
+
+            int dataAddress = preMemValue.immd + rsValue(preMemValue);
+            int storeValue = rtValue(preMemValue);
+            boolean isStore = preMemValue.opcodeType == Opcode.SW;
+
+            if (dataCache != null && !dataCache.canAccept(dataAddress)) {
+                break;
+            }
+
+            preMem.poll();
+            if (dataCache != null && !dataCache.access(preMemValue, dataAddress, storeValue, isStore)) {
+                // missed, the cache hands it back once the block is in
+                continue;
+            }
+
+            completeMemoryOp(preMemValue, dataAddress, storeValue);
+        }
+    }
+
+    // MEM with a load/store queue: pre-MEM ops get their addresses, then the memory ports go to the
+    // oldest store and to whichever loads are free of older stores
+    private void queuedMem() {
+        for (int unit = 0; unit < config.memUnits && preMem.peek() != null; unit++) {
+            Instruction op = preMem.poll();
+            loadStoreQueue.setAddress(op, op.immd + rsValue(op), rtValue(op));
+
+            // a store is done as far as the pipeline is concerned, the queue writes it back later
+            if (op.opcodeType == Opcode.SW) {
+                instructionsCompleted++;
+                if (renamer != null) {
+                    renamer.complete(op);
+                }
+            }
+        }
+
+        int ports = config.memUnits;
+
+        if (loadStoreQueue.size() > 0 && loadStoreQueue.get(0).opcodeType == Opcode.SW
+                && loadStoreQueue.isAddressKnown(0) && !loadStoreQueue.isAccessing(0)) {
+            Instruction store = loadStoreQueue.get(0);
+            int address = loadStoreQueue.getAddress(0);
+            int value = loadStoreQueue.getValue(0);
+
+            if (dataCache == null || dataCache.canAccept(address)) {
+                ports--;
+                if (dataCache != null && !dataCache.access(store, address, value, true)) {
+                    loadStoreQueue.setAccessing(0);
+                } else {
+                    data.store(address, value);
+                    loadStoreQueue.remove(0);
+                }
+            }
+        }
+
+        for (int i = 0; i < loadStoreQueue.size() && !postMem.isFull(); i++) {
+            Instruction load = loadStoreQueue.get(i);
+            if (load.opcodeType != Opcode.LW || !loadStoreQueue.isAddressKnown(i) || loadStoreQueue.isAccessing(i)) {
+                continue;
+            }
+
+            int store = loadStoreQueue.findForwardingStore(i);
+            if (store == LoadStoreQueue.BLOCKED) {
+                loadStoreQueue.addressStalls++;
+                continue;
+            }
+
+            // forwarding reads the queue, not memory, so it doesn't need a port
+            if (store >= 0) {
+                load.memoryValue = loadStoreQueue.getValue(store);
+                loadStoreQueue.loadsForwarded++;
+                loadStoreQueue.remove(i--);
+                postMem.add(load);
+                continue;
+            }
+
+            int address = loadStoreQueue.getAddress(i);
+            if (ports == 0 || (dataCache != null && !dataCache.canAccept(address))) {
+                continue;
+            }
+
+            ports--;
+            if (loadStoreQueue.hasOlderStore(i)) {
+                loadStoreQueue.loadsBypassed++;
+            }
+            if (dataCache != null && !dataCache.access(load, address, 0, false)) {
+                loadStoreQueue.setAccessing(i);
+                continue;
+            }
+
+            load.memoryValue = data.load(address);
+            loadStoreQueue.remove(i--);
+            postMem.add(load);
+        }
+    }
+
+    private void completeQueuedAccess(Instruction instruction, int dataAddress, int storeValue) {
+        loadStoreQueue.remove(loadStoreQueue.indexOf(instruction));
+        switch (instruction.opcodeType) {
+            case SW:
+                data.store(dataAddress, storeValue);
+                break;
+            case LW:
+                instruction.memoryValue = data.load(dataAddress);
+                postMem.add(instruction);
+                break;
+        }
+    }
+
+    private void completeMemoryOp(Instruction instruction, int dataAddress, int storeValue) {
+        switch (instruction.opcodeType) {
+            case SW:
+                data.store(dataAddress, storeValue);
+                instructionsCompleted++;
+                if (renamer != null) {
+                    renamer.complete(instruction);
+                }
+                break;
+            case LW:
+                instruction.memoryValue = data.load(dataAddress);
+                postMem.add(instruction);
+                break;
+        }
+    }
+
+    public void ALU() {
+        for (FunctionalUnitPool pool : functionalUnits) {
+            pool.startCycle();
+        }
+
+        // pre-ALU dispatches in order, stopping at the first instruction whose units are all busy
+        int dispatched = 0;
+        while (preALU.peek() != null) {
+            FunctionalUnitPool pool = getFunctionalUnit(preALU.peek());
+            if (!pool.canAccept()) {
+                break;
+            }
+            Instruction instruction = preALU.poll();
+            instruction.rsOperand = rsValue(instruction);
+            instruction.rtOperand = rtValue(instruction);
+            pool.dispatch(instruction, dispatchSequence++);
+            dispatched++;
+        }
+
+        for (FunctionalUnitPool pool : functionalUnits) {
+            pool.advance();
+        }
+
+        // finished ops go to post-ALU oldest first, whatever unit they ran on
+        int finished = 0;
+        while (!postALU.isFull()) {
+            FunctionalUnitPool oldest = null;
+            for (FunctionalUnitPool pool : functionalUnits) {
+                if (pool.getOldestFinished() != Long.MAX_VALUE
+                        && (oldest == null || pool.getOldestFinished() < oldest.getOldestFinished())) {
+                    oldest = pool;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            postALU.add(oldest.removeOldestFinished());
+            finished++;
+        }
+
+        if (counters != null) {
+            counters.record(PerformanceCounters.Stage.ALU, getAluStall(dispatched, finished));
+        }
+    }
+
+    private PerformanceCounters.Stall getAluStall(int dispatched, int finished) {
+        if (dispatched > 0 || finished > 0) {
+            return PerformanceCounters.Stall.ACTIVE;
+        } else if (preALU.peek() != null) {
+            return PerformanceCounters.Stall.UNITS_BUSY;
+        }
+
+        // nothing moved, but something may still be executing or waiting on post-ALU
+        for (FunctionalUnitPool pool : functionalUnits) {
+            if (pool.getOldestFinished() != Long.MAX_VALUE) {
+                return PerformanceCounters.Stall.POST_ALU_FULL;
+            } else if (pool.size() > 0) {
+                return PerformanceCounters.Stall.ACTIVE;
+            }
+        }
+        return PerformanceCounters.Stall.EMPTY;
+    }
+
+    private FunctionalUnitPool getFunctionalUnit(Instruction instruction) {
+        switch (instruction.opcodeType) {
+            case MUL:
+                return mulUnit != null ? mulUnit : aluUnit;
+            case SLL:
+            case SRL:
+                return shiftUnit != null ? shiftUnit : aluUnit;
+            default:
+                return aluUnit;
+        }
+    }
+
+    public void WB() {
+        if (counters != null) {
+            counters.record(PerformanceCounters.Stage.WB, postALU.peek() != null || postMem.peek() != null
+                    ? PerformanceCounters.Stall.ACTIVE : PerformanceCounters.Stall.EMPTY);
+        }
+
+        while(postALU.peek() != null) {
+            Instruction postALUValue = postALU.poll();
+            issuedWriters.removeWriter(getDestinationRegister(postALUValue));
+            instructionsCompleted++;
+            switch (postALUValue.opcodeType) {
+                //fix the changing of the register values as they probably will be changed in the issue stage.
+                case ADD:
+                    writeRegister(postALUValue, postALUValue.rd, postALUValue.rsOperand + postALUValue.rtOperand);
+                    break;
+                case SUB:
+                    writeRegister(postALUValue, postALUValue.rd, postALUValue.rsOperand - postALUValue.rtOperand);
+                    break;
+                case ADDI:
+                    writeRegister(postALUValue, postALUValue.rt, postALUValue.rsOperand + postALUValue.immd);
+                    break;
+                case SLL:
+                    writeRegister(postALUValue, postALUValue.rd, postALUValue.rtOperand << postALUValue.sa);
+                    break;
+                case SRL:
+                    writeRegister(postALUValue, postALUValue.rd, postALUValue.rtOperand >> postALUValue.sa);
+                    break;
+                case MUL:
+                    writeRegister(postALUValue, postALUValue.rd, postALUValue.rsOperand * postALUValue.rtOperand);
+                    break;
+                case MOVZ:
+                    if (postALUValue.rtOperand == 0) {
+                        writeRegister(postALUValue, postALUValue.rd, postALUValue.rsOperand);
+                    } else if (renamer != null) {
+                        // the new physical register still has to end up holding rd
+                        renamer.write(postALUValue, renamer.read(postALUValue.physOld));
+                    }
+                    break;
+                default:
+                    if (renamer != null) {
+                        renamer.complete(postALUValue);
+                    }
+                    break;
+            }
+        }
+        while(postMem.peek() != null) {
+            Instruction postMemValue = postMem.poll();
+            issuedWriters.removeWriter(getDestinationRegister(postMemValue));
+            instructionsCompleted++;
+
+            if (postMemValue.opcodeType == Opcode.LW){
+                writeRegister(postMemValue, postMemValue.rt, postMemValue.memoryValue);
+            }
+        }
+    }
+
+    // retires up to commitWidth finished instructions from the head of the ROB
+    public void Commit() {
+        int committed = 0;
+        while (committed < config.commitWidth && renamer.commit(registers)) {
+            committed++;
+        }
+        instructionsCommitted += committed;
+
+        if (counters != null) {
+            counters.record(PerformanceCounters.Stage.COMMIT, committed > 0 ? PerformanceCounters.Stall.ACTIVE
+                    : renamer.getRobCount() == 0 ? PerformanceCounters.Stall.EMPTY : PerformanceCounters.Stall.ROB_HEAD);
+        }
+    }
+
+    // operand values, from the physical registers the instruction was renamed to when renaming is on
+    private int rsValue(Instruction instruction) {
+        return renamer == null ? registers[instruction.rs] : renamer.read(instruction.physRs);
+    }
+
+    private int rtValue(Instruction instruction) {
+        return renamer == null ? registers[instruction.rt] : renamer.read(instruction.physRt);
+    }
+
+    private void writeRegister(Instruction instruction, int register, int value) {
+        if (renamer == null) {
+            registers[register] = value;
+        } else {
+            renamer.write(instruction, value);
+        }
+    }
+
+    public static boolean isRType(Instruction instruction){
+        return instruction.opcodeType == Opcode.ADD
+                || instruction.opcodeType == Opcode.SUB
+                || instruction.opcodeType == Opcode.MUL
+                || instruction.opcodeType == Opcode.MOVZ
+                || instruction.opcodeType == Opcode.SLL
+                || instruction.opcodeType == Opcode.SRL;
+    }
+
+    // I think i got everything
+    // SW should be ignored as it does not write to a register
+    private static boolean isIType(Instruction instruction) {
+        return instruction.opcodeType == Opcode.ADDI
+                || instruction.opcodeType == Opcode.LW;
+    }
+
+    public int getIssuedInstructionCount(){
+        int executing = 0;
+        for (FunctionalUnitPool pool : functionalUnits) {
+            executing += pool.size();
+        }
+
+        return preALU.size() + preMem.size() + postALU.size() + postMem.size() + executing
+                + (dataCache == null ? 0 : dataCache.getOutstandingCount());
+    }
+
+    // the register an instruction writes, or -1 (SW, branches, NOP, ...)
+    public static int getDestinationRegister(Instruction instruction){
+        if (isRType(instruction)){
+            return instruction.rd;
+        } else if (isIType(instruction)){
+            return instruction.rt;
+        }
+
+        return -1;
+    }
+
+    // bit mask of the registers an instruction reads
+    public static int getSourceMask(Instruction instruction){
+        if (isRType(instruction) || instruction.opcodeType == Opcode.SW){
+            return (1 << instruction.rs) | (1 << instruction.rt);
+        } else if (isIType(instruction)){
+            return 1 << instruction.rs;
+        }
+
+        return 0;
+    }
+
+    // true if any register in the mask still has a writer in pre-issue or in flight
+    private boolean hasPendingWriter(int registerMask){
+        return ((preIssueWriters.getPendingMask() | issuedWriters.getPendingMask()) & registerMask) != 0;
+    }
+
+    // true if a branch can't be resolved yet because one of its operands hasn't been written
+    private boolean hasPendingOperand(Instruction branch){
+        if (renamer == null){
+            return hasPendingWriter(getBranchSourceMask(branch));
+        }
+
+        return !renamer.isReady(branch.physRs)
+                || (branch.opcodeType == Opcode.BEQ && !renamer.isReady(branch.physRt));
+    }
+
+    public static String createReadableMipsInstruction(Instruction instruction){
+        if (instruction.valid == 0){
+            return " Invalid Instruction";
+        }
+
+        switch (instruction.opcodeType){
+            case ADDI:
+                return String.format(" ADDI\t R%s, R%s, #%s", instruction.rt, instruction.rs, instruction.immd);
+            case NOP:
+                return " NOP";
+            case SW:
+                return String.format(" SW  \t R%s, %s(R%s)", instruction.rt, instruction.immd, instruction.rs);
+            case SLL:
+                return String.format(" SLL\t R%s, R%s, #%s", instruction.rd, instruction.rt, instruction.sa);
+            case SRL:
+                return String.format(" SRL\t R%s, R%s, #%s", instruction.rd, instruction.rt, instruction.sa);
+            case SUB:
+                return String.format(" SUB \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
+            case ADD:
+                return String.format(" ADD \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
+            case LW:
+                return String.format(" LW  \t R%s, %s(R%s)", instruction.rt, instruction.immd, instruction.rs);
+            case J:
+                return String.format(" J  \t #%s", instruction.j);
+            case BLTZ:
+                return String.format(" BLTZ\t R%s, #%s", instruction.rs, instruction.immd);
+            case JR:
+                return String.format(" JR  \t R%s", instruction.rs);
+            case BREAK:
+                return " BREAK";
+            case MUL:
+                return String.format(" MUL \t R%s, R%s, R%s", instruction.rd, instruction.rs, instruction.rt);
+            case MOVZ:
+                return String.format(" MOVZ\t R%s, R%S, R%s", instruction.rd, instruction.rs, instruction.rt);
+            default:
+                return " ERROR";
+        }
+    }
+}
+
+
@@ -0,0 +1,258 @@
+// Run options for a Simulator. Defaults match running Main with only -i and -o.
+public class SimulatorConfig {
+    public static final String[] GEOMETRY_PARAMETERS = {
+            "preIssueSize", "preAluSize", "preMemSize", "postAluSize", "postMemSize",
+            "issueWidth", "fetchWidth", "aluUnits", "memUnits",
+            "icacheSize", "icacheBlockSize", "icacheAssociativity", "icacheMissPenalty",
+            "dcacheSize", "dcacheBlockSize", "dcacheAssociativity", "dcacheMissPenalty", "dcacheNonBlocking", "dcacheMshrs",
+            "branchPredictor", "bpTableBits", "bpHistoryBits", "btbEntries",
+            "renaming", "physicalRegisters", "robSize", "commitWidth",
+            "aluLatency", "aluDepth", "mulUnits", "mulLatency", "mulDepth", "shiftUnits", "shiftLatency", "shiftDepth",
+            "forwardAlu", "forwardMem", "loadStoreQueue", "lsqSize"
+    };
+
+    // anything larger doesn't fit the binary trace's per-buffer byte count
+    public static final int MAX_BUFFER_SIZE = 255;
+
+    public TraceWriter.Level traceLevel = TraceWriter.Level.FILE_AND_CONSOLE;
+    public boolean binaryTrace = false;
+    public int deltaKeyframeInterval = 0;
+    public boolean disassemblyListing = true;
+
+    // stop the pipeline once this many instructions have completed, 0 runs to BREAK
+    public long windowInstructions = 0;
+
+    // "json" or "csv" writes out_name_counters.<format> after the run, null keeps no counters
+    public String countersFormat = null;
+
+    // writes out_name_profile.txt / out_name_profile.folded with per-instruction costs
+    public boolean profile = false;
+
+    // host-side metrics: a progress line every progressSeconds (0 = none) and/or an MBean per run
+    public int progressSeconds = 0;
+    public boolean jmx = false;
+
+    // the pipeline stops after maxCycles cycles (0 = no limit), or once nothing in it has changed for
+    // hangCycles cycles in a row
+    public long maxCycles = 0;
+    public long hangCycles = 10_000;
+
+    // pipeline geometry
+    public int preIssueSize = 4;
+    public int preAluSize = 2;
+    public int preMemSize = 2;
+    public int postAluSize = 1;
+    public int postMemSize = 1;
+    public int issueWidth = 2;
+    public int fetchWidth = 2;
+    public int aluUnits = 1;
+    public int memUnits = 1;
+
+    // I-cache, icacheSize 0 means fetch always hits
+    public int icacheSize = 0;
+    public int icacheBlockSize = 16;
+    public int icacheAssociativity = 2;
+    public int icacheMissPenalty = 10;
+
+    // D-cache, dcacheSize 0 means every load / store finishes in one cycle
+    public int dcacheSize = 0;
+    public int dcacheBlockSize = 16;
+    public int dcacheAssociativity = 2;
+    public int dcacheMissPenalty = 10;
+    public int dcacheNonBlocking = 0;
+    public int dcacheMshrs = 4;
+
+    // branch prediction, 0 stalls fetch on unresolved branches, 1 bimodal, 2 gshare
+    public int branchPredictor = 0;
+    public int bpTableBits = 10;
+    public int bpHistoryBits = 8;
+    public int btbEntries = 64;
+
+    // register renaming, 0 keeps the scoreboard's WBW / WBR checks, 1 renames at fetch and commits through a ROB
+    public int renaming = 0;
+    public int physicalRegisters = 64;
+    public int robSize = 32;
+    public int commitWidth = 2;
+
+    // functional units, latency in cycles and depth = ops a unit can overlap. With 0 mul / shift units
+    // MUL and SLL / SRL run on the ALUs (aluUnits above).
+    public int aluLatency = 1;
+    public int aluDepth = 1;
+    public int mulUnits = 0;
+    public int mulLatency = 4;
+    public int mulDepth = 4;
+    public int shiftUnits = 0;
+    public int shiftLatency = 1;
+    public int shiftDepth = 1;
+
+    // bypass paths, 1 lets issue use a result sitting in post-ALU / post-MEM before it is written back
+    public int forwardAlu = 0;
+    public int forwardMem = 0;
+
+    // 1 tracks loads and stores in a load/store queue instead of issuing stores in order
+    public int loadStoreQueue = 0;
+    public int lsqSize = 8;
+
+    public SimulatorConfig copy() {
+        SimulatorConfig copy = new SimulatorConfig();
+        copy.traceLevel = traceLevel;
+        copy.binaryTrace = binaryTrace;
+        copy.deltaKeyframeInterval = deltaKeyframeInterval;
+        copy.disassemblyListing = disassemblyListing;
+        copy.windowInstructions = windowInstructions;
+        copy.countersFormat = countersFormat;
+        copy.profile = profile;
+        copy.progressSeconds = progressSeconds;
+        copy.jmx = jmx;
+        copy.maxCycles = maxCycles;
+        copy.hangCycles = hangCycles;
+        for (String parameter : GEOMETRY_PARAMETERS) {
+            copy.setGeometry(parameter, getGeometry(parameter));
+        }
+        return copy;
+    }
+
+    // in print order: pre-issue, pre-ALU, post-ALU, pre-MEM, post-MEM
+    public int[] getBufferSizes() {
+        return new int[]{preIssueSize, preAluSize, postAluSize, preMemSize, postMemSize};
+    }
+
+    public int getGeometry(String parameter) {
+        switch (parameter) {
+            case "preIssueSize": return preIssueSize;
+            case "preAluSize": return preAluSize;
+            case "preMemSize": return preMemSize;
+            case "postAluSize": return postAluSize;
+            case "postMemSize": return postMemSize;
+            case "issueWidth": return issueWidth;
+            case "fetchWidth": return fetchWidth;
+            case "aluUnits": return aluUnits;
+            case "memUnits": return memUnits;
+            case "icacheSize": return icacheSize;
+            case "icacheBlockSize": return icacheBlockSize;
+            case "icacheAssociativity": return icacheAssociativity;
+            case "icacheMissPenalty": return icacheMissPenalty;
+            case "dcacheSize": return dcacheSize;
+            case "dcacheBlockSize": return dcacheBlockSize;
+            case "dcacheAssociativity": return dcacheAssociativity;
+            case "dcacheMissPenalty": return dcacheMissPenalty;
+            case "dcacheNonBlocking": return dcacheNonBlocking;
+            case "dcacheMshrs": return dcacheMshrs;
+            case "branchPredictor": return branchPredictor;
+            case "bpTableBits": return bpTableBits;
+            case "bpHistoryBits": return bpHistoryBits;
+            case "btbEntries": return btbEntries;
+            case "renaming": return renaming;
+            case "physicalRegisters": return physicalRegisters;
+            case "robSize": return robSize;
+            case "commitWidth": return commitWidth;
+            case "aluLatency": return aluLatency;
+            case "aluDepth": return aluDepth;
+            case "mulUnits": return mulUnits;
+            case "mulLatency": return mulLatency;
+            case "mulDepth": return mulDepth;
+            case "shiftUnits": return shiftUnits;
+            case "shiftLatency": return shiftLatency;
+            case "shiftDepth": return shiftDepth;
+            case "forwardAlu": return forwardAlu;
+            case "forwardMem": return forwardMem;
+            case "loadStoreQueue": return loadStoreQueue;
+            case "lsqSize": return lsqSize;
+            default: throw new IllegalArgumentException("Unknown geometry parameter: " + parameter);
+        }
+    }
+
+    public void setGeometry(String parameter, int value) {
+        int min = getMinimum(parameter);
+        int max = getMaximum(parameter);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(parameter + " must be between " + min + " and " + max + ": " + value);
+        }
+
+        switch (parameter) {
+            case "preIssueSize": preIssueSize = value; break;
+            case "preAluSize": preAluSize = value; break;
+            case "preMemSize": preMemSize = value; break;
+            case "postAluSize": postAluSize = value; break;
+            case "postMemSize": postMemSize = value; break;
+            case "issueWidth": issueWidth = value; break;
+            case "fetchWidth": fetchWidth = value; break;
+            case "aluUnits": aluUnits = value; break;
+            case "memUnits": memUnits = value; break;
+            case "icacheSize": icacheSize = value; break;
+            case "icacheBlockSize": icacheBlockSize = value; break;
+            case "icacheAssociativity": icacheAssociativity = value; break;
+            case "icacheMissPenalty": icacheMissPenalty = value; break;
+            case "dcacheSize": dcacheSize = value; break;
+            case "dcacheBlockSize": dcacheBlockSize = value; break;
+            case "dcacheAssociativity": dcacheAssociativity = value; break;
+            case "dcacheMissPenalty": dcacheMissPenalty = value; break;
+            case "dcacheNonBlocking": dcacheNonBlocking = value; break;
+            case "dcacheMshrs": dcacheMshrs = value; break;
+            case "branchPredictor": branchPredictor = value; break;
+            case "bpTableBits": bpTableBits = value; break;
+            case "bpHistoryBits": bpHistoryBits = value; break;
+            case "btbEntries": btbEntries = value; break;
+            case "renaming": renaming = value; break;
+            case "physicalRegisters": physicalRegisters = value; break;
+            case "robSize": robSize = value; break;
+            case "commitWidth": commitWidth = value; break;
+            case "aluLatency": aluLatency = value; break;
+            case "aluDepth": aluDepth = value; break;
+            case "mulUnits": mulUnits = value; break;
+            case "mulLatency": mulLatency = value; break;
+            case "mulDepth": mulDepth = value; break;
+            case "shiftUnits": shiftUnits = value; break;
+            case "shiftLatency": shiftLatency = value; break;
+            case "shiftDepth": shiftDepth = value; break;
+            case "forwardAlu": forwardAlu = value; break;
+            case "forwardMem": forwardMem = value; break;
+            case "loadStoreQueue": loadStoreQueue = value; break;
+            case "lsqSize": lsqSize = value; break;
+            default: throw new IllegalArgumentException("Unknown geometry parameter: " + parameter);
+        }
+    }
+
+    private static int getMaximum(String parameter) {
+        switch (parameter) {
+            case "preIssueSize":
+            case "preAluSize":
+            case "preMemSize":
+            case "postAluSize":
+            case "postMemSize":
+                return MAX_BUFFER_SIZE;
+            case "dcacheNonBlocking":
+            case "renaming":
+            case "forwardAlu":
+            case "forwardMem":
+            case "loadStoreQueue":
+                return 1;
+            case "branchPredictor":
+                return BranchPredictor.GSHARE;
+            default:
+                return Integer.MAX_VALUE;
+        }
+    }
+
+    // cache sizes and penalties can be 0 (no cache / free miss), as can the optional units; everything else needs at least 1
+    private static int getMinimum(String parameter) {
+        switch (parameter) {
+            case "icacheSize":
+            case "icacheMissPenalty":
+            case "dcacheSize":
+            case "dcacheMissPenalty":
+            case "dcacheNonBlocking":
+            case "branchPredictor":
+            case "bpHistoryBits":
+            case "renaming":
+            case "mulUnits":
+            case "shiftUnits":
+            case "forwardAlu":
+            case "forwardMem":
+            case "loadStoreQueue":
+                return 0;
+            default:
+                return 1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+// Live view of a running Simulator over JMX (-J on), registered as cs286:type=Simulator,name=<program>#<n>
+// for the length of the run. Values are as of the last progress interval.
+public interface SimulatorMetricsMXBean {
+    String getProgram();
+
+    long getCycle();
+
+    long getInstructionsCompleted();
+
+    double getCyclesPerSecond();
+
+    long getFetchMillis();
+
+    long getIssueMillis();
+
+    long getAluMillis();
+
+    long getMemMillis();
+
+    long getWbMillis();
+
+    long getCommitMillis();
+
+    long getTraceMillis();
+
+    long getTraceWaitMillis();
+
+    long getTraceBytes();
+
+    long getAllocatedBytes();
+
+    long getAllocationRate();
+}
@@ -0,0 +1,67 @@
+import jdk.jfr.*;
+
+// One per progress interval of a run: where the host time of the interval went and how fast the
+// simulation moved. The event's duration is the interval.
+@Name("cs286.SimulatorProgress")
+@Label("Simulator Progress")
+@Category("Superscalar MIPS")
+@StackTrace(false)
+@Description("Host time per pipeline stage, simulated cycles per second, trace output and allocation over one interval")
+public class SimulatorProgressEvent extends Event {
+    @Label("Program")
+    public String program;
+
+    @Label("Cycle")
+    public long cycle;
+
+    @Label("Instructions Completed")
+    public long instructions;
+
+    @Label("Cycles per Second")
+    @Frequency
+    public double cyclesPerSecond;
+
+    @Label("Fetch Time")
+    @Timespan
+    public long fetchTime;
+
+    @Label("Issue Time")
+    @Timespan
+    public long issueTime;
+
+    @Label("ALU Time")
+    @Timespan
+    public long aluTime;
+
+    @Label("MEM Time")
+    @Timespan
+    public long memTime;
+
+    @Label("WB Time")
+    @Timespan
+    public long wbTime;
+
+    @Label("Commit Time")
+    @Timespan
+    public long commitTime;
+
+    @Label("Trace Time")
+    @Description("Formatting and handing off the cycle trace, including trace I/O wait")
+    @Timespan
+    public long traceTime;
+
+    @Label("Trace I/O Wait")
+    @Description("Time the simulation thread was blocked on the trace writer")
+    @Timespan
+    public long traceWaitTime;
+
+    @Label("Trace Bytes")
+    @Description("Trace output written during the interval")
+    @DataAmount
+    public long traceBytes;
+
+    @Label("Allocation Rate")
+    @DataAmount
+    @Frequency
+    public long allocationRate;
+}
@@ -0,0 +1,42 @@
+import jdk.jfr.*;
+
+// One per pipeline run, spanning the whole run, with the totals of every SimulatorProgressEvent.
+@Name("cs286.SimulatorRun")
+@Label("Simulator Run")
+@Category("Superscalar MIPS")
+@StackTrace(false)
+public class SimulatorRunEvent extends Event {
+    @Label("Program")
+    public String program;
+
+    @Label("Cycles")
+    public long cycles;
+
+    @Label("Instructions Completed")
+    public long instructions;
+
+    @Label("Cycles per Second")
+    @Frequency
+    public double cyclesPerSecond;
+
+    @Label("Stage Time")
+    @Description("Fetch, issue, ALU, MEM, WB and commit together")
+    @Timespan
+    public long stageTime;
+
+    @Label("Trace Time")
+    @Timespan
+    public long traceTime;
+
+    @Label("Trace I/O Wait")
+    @Timespan
+    public long traceWaitTime;
+
+    @Label("Trace Bytes")
+    @DataAmount
+    public long traceBytes;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+}
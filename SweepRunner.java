@@ -0,0 +1,177 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Design-space sweep: runs one program under every combination of the given geometry ranges on a
+// fork-join pool and writes one CSV row (geometry, cycles, instructions, IPC) per configuration.
+public class SweepRunner {
+
+    public static class Range {
+        public final String parameter;
+        public final int min;
+        public final int max;
+        public final int step;
+
+        public Range(String parameter, int min, int max, int step) {
+            this.parameter = parameter;
+            this.min = min;
+            this.max = max;
+            this.step = step;
+        }
+    }
+
+    // "name=value" or "name=min:max[:step]", comma separated, e.g. "issueWidth=1:4,aluUnits=1:2"
+    public static List<Range> parseRanges(String spec) {
+        List<Range> ranges = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] nameAndRange = part.trim().split("=");
+            if (nameAndRange.length != 2) {
+                throw new IllegalArgumentException("Expected name=min:max[:step] but got: " + part);
+            }
+
+            String[] bounds = nameAndRange[1].split(":");
+            try {
+                int min = Integer.parseInt(bounds[0]);
+                int max = bounds.length > 1 ? Integer.parseInt(bounds[1]) : min;
+                int step = bounds.length > 2 ? Integer.parseInt(bounds[2]) : 1;
+                if (step < 1 || max < min) {
+                    throw new IllegalArgumentException("Empty range: " + part);
+                }
+
+                // validates the parameter name and both ends of the range
+                new SimulatorConfig().setGeometry(nameAndRange[0], min);
+                new SimulatorConfig().setGeometry(nameAndRange[0], max);
+
+                ranges.add(new Range(nameAndRange[0], min, max, step));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid range: " + part);
+            }
+        }
+        return ranges;
+    }
+
+    public static void run(String inputFile, String csvFile, SimulatorConfig baseConfig, List<Range> ranges, int threads) {
+        List<SimulatorConfig> configs = new ArrayList<>();
+        enumerate(baseConfig, ranges, 0, configs);
+
+        String[] rows = new String[configs.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new SweepTask(inputFile, configs, rows, 0, configs.size()));
+        } finally {
+            pool.shutdown();
+        }
+
+        try (Writer writer = new BufferedWriter(new FileWriter(csvFile))) {
+            writer.write(String.join(",", SimulatorConfig.GEOMETRY_PARAMETERS) + ",cycles,instructions,ipc,icache_hits,icache_misses,dcache_hits,dcache_misses,dcache_writebacks,branch_accuracy,squashes,forwarded_alu,forwarded_mem,loads_bypassed,loads_forwarded,error\n");
+            for (String row : rows) {
+                writer.write(row);
+            }
+        } catch (IOException e) {
+            throw new SimulationException("Could not write sweep results: " + csvFile, e);
+        }
+    }
+
+    private static void enumerate(SimulatorConfig config, List<Range> ranges, int rangeIndex, List<SimulatorConfig> configs) {
+        if (rangeIndex == ranges.size()) {
+            configs.add(config);
+            return;
+        }
+
+        Range range = ranges.get(rangeIndex);
+        for (int value = range.min; value <= range.max; value += range.step) {
+            SimulatorConfig next = config.copy();
+            next.setGeometry(range.parameter, value);
+            enumerate(next, ranges, rangeIndex + 1, configs);
+        }
+    }
+
+    private static String runOne(String inputFile, SimulatorConfig config) {
+        StringBuilder row = new StringBuilder();
+        for (String parameter : SimulatorConfig.GEOMETRY_PARAMETERS) {
+            row.append(config.getGeometry(parameter)).append(',');
+        }
+        int geometryLength = row.length();
+
+        try {
+            SimulationResult result = new Simulator(config).run(inputFile, null);
+            row.append(result.cycles).append(',')
+                    .append(result.instructionsCompleted).append(',')
+                    .append(String.format("%.4f", result.getIPC())).append(',');
+            if (result.instructionCacheStats != null) {
+                row.append(result.instructionCacheStats.hits).append(',').append(result.instructionCacheStats.misses);
+            } else {
+                row.append(',');
+            }
+            row.append(',');
+            if (result.dataCacheStats != null) {
+                row.append(result.dataCacheStats.hits).append(',').append(result.dataCacheStats.misses)
+                        .append(',').append(result.dataCacheStats.writebacks);
+            } else {
+                row.append(",,");
+            }
+            row.append(',');
+            if (result.branchPredictor != null) {
+                row.append(String.format("%.4f", result.branchPredictor.getAccuracy())).append(',')
+                        .append(result.branchPredictor.squashes);
+            } else {
+                row.append(',');
+            }
+            row.append(',').append(result.forwardedFromAlu).append(',').append(result.forwardedFromMem).append(',');
+            if (result.loadStoreQueue != null) {
+                row.append(result.loadStoreQueue.loadsBypassed).append(',').append(result.loadStoreQueue.loadsForwarded);
+            } else {
+                row.append(',');
+            }
+            row.append(',');
+            // a configuration that hit the cycle limit or deadlocked keeps its partial numbers
+            if (result.stopReason != null) {
+                row.append('"').append(result.stopReason.replace("\"", "'")).append('"');
+            }
+            row.append('\n');
+        } catch (RuntimeException e) {
+            // any configuration that fails, not just with a SimulationException, gets an error row and the
+            // rest of the sweep carries on, as batch runs do
+            String message = e instanceof SimulationException ? e.getMessage() : String.valueOf(e);
+            row.setLength(geometryLength);
+            row.append(",,,,,,,,,,,,,,\"").append(String.valueOf(message).replace("\"", "'")).append("\"\n");
+        }
+        return row.toString();
+    }
+
+    private static class SweepTask extends RecursiveAction {
+        // ForkJoinTask is Serializable; sweep tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final String inputFile;
+        private final List<SimulatorConfig> configs;
+        private final String[] rows;
+        private final int from;
+        private final int to;
+
+        SweepTask(String inputFile, List<SimulatorConfig> configs, String[] rows, int from, int to) {
+            this.inputFile = inputFile;
+            this.configs = configs;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                rows[from] = runOne(inputFile, configs.get(from));
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(inputFile, configs, rows, from, middle),
+                    new SweepTask(inputFile, configs, rows, middle, to));
+        }
+    }
+}
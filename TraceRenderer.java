@@ -0,0 +1,96 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline renderer for the binary trace written by BinaryTraceWriter.
+// ARGS: "trace.trc", "out_pipeline.txt"
+public class TraceRenderer {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: TraceRenderer trace.trc out_pipeline.txt");
+            System.exit(-1);
+        }
+
+        try {
+            render(args[0], args[1]);
+        } catch (IOException e) {
+            System.out.println("Could not render trace: " + args[0] + " (" + e.getMessage() + ")");
+            System.exit(-1);
+        }
+    }
+
+    public static void render(String traceFile, String outputFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(traceFile), 1 << 16));
+             Writer out = new BufferedWriter(new FileWriter(outputFile), 1 << 16)) {
+
+            if (in.readInt() != BinaryTraceWriter.MAGIC) {
+                throw new IOException("not a pipeline trace");
+            }
+            int version = in.readInt();
+            // version 1 traces only differ in writing the cycle as an int
+            if (version != 1 && version != BinaryTraceWriter.VERSION) {
+                throw new IOException("unsupported trace version " + version);
+            }
+
+            int[] bufferSizes = new int[BinaryTraceWriter.BUFFER_COUNT];
+            for (int i = 0; i < bufferSizes.length; i++) {
+                bufferSizes[i] = in.readInt();
+            }
+
+            InstructionMemory instructions = new InstructionMemory();
+            int instructionCount = in.readInt();
+            for (int i = 0; i < instructionCount; i++) {
+                int address = in.readInt();
+                instructions.put(address, new Instruction(in.readInt(), address));
+            }
+
+            int[] registers = new int[in.readInt()];
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = in.readInt();
+            }
+
+            DataMemory data = new DataMemory();
+            int runCount = in.readInt();
+            for (int r = 0; r < runCount; r++) {
+                int start = in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    data.store(start + (i << 2), in.readInt());
+                }
+            }
+
+            List<List<Instruction>> buffers = new ArrayList<>();
+            for (int i = 0; i < BinaryTraceWriter.BUFFER_COUNT; i++) {
+                buffers.add(new ArrayList<>());
+            }
+
+            while (in.readByte() == BinaryTraceWriter.CYCLE_RECORD) {
+                long cycle = version == 1 ? in.readInt() : in.readLong();
+
+                for (List<Instruction> buffer : buffers) {
+                    buffer.clear();
+                    int count = in.readUnsignedByte();
+                    for (int i = 0; i < count; i++) {
+                        buffer.add(instructions.get(in.readInt()));
+                    }
+                }
+
+                int changedRegisters = in.readUnsignedByte();
+                for (int i = 0; i < changedRegisters; i++) {
+                    int register = in.readUnsignedByte();
+                    registers[register] = in.readInt();
+                }
+
+                int changedWords = in.readInt();
+                for (int i = 0; i < changedWords; i++) {
+                    int address = in.readInt();
+                    data.store(address, in.readInt());
+                }
+
+                out.write(Simulator.createCycleString(cycle, buffers.get(0), buffers.get(1), buffers.get(2),
+                        buffers.get(3), buffers.get(4), bufferSizes, registers, data));
+            }
+        }
+    }
+}
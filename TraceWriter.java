@@ -0,0 +1,152 @@
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Per-cycle trace sink. Text is collected into a large buffer on the simulation thread and handed off
+// in chunks to a background thread that does the actual file (and console) writes, so the pipeline
+// only ever blocks if the writer falls a whole queue of chunks behind.
+public class TraceWriter implements Closeable {
+
+    public enum Level {
+        OFF,                // nothing at all
+        SUMMARY,            // only the final machine state
+        FILE,               // every cycle, file only
+        FILE_AND_CONSOLE    // every cycle, file and System.out (the original behaviour)
+    }
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_PENDING_CHUNKS = 16;
+    private static final String END_OF_TRACE = new String("");
+
+    private final Level level;
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE);
+    private final BlockingQueue<String> pending = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+    private final Thread writerThread;
+    private volatile IOException writeError;
+
+    // what the simulation thread handed off, and how long it was blocked doing so
+    private long charsWritten = 0;
+    private long blockedNanos = 0;
+
+    public TraceWriter(String filename, Level level) throws IOException {
+        this.level = level;
+
+        if (level == Level.OFF) {
+            writerThread = null;
+            return;
+        }
+
+        Writer fileWriter = new BufferedWriter(new FileWriter(filename), CHUNK_SIZE);
+        boolean echoToConsole = level == Level.FILE_AND_CONSOLE;
+
+        writerThread = new Thread(() -> drain(fileWriter, echoToConsole), "trace-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    // true when every cycle should be formatted and written
+    public boolean isCycleTraceEnabled() {
+        return level == Level.FILE || level == Level.FILE_AND_CONSOLE;
+    }
+
+    public long getCharsWritten() {
+        return charsWritten;
+    }
+
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    public void write(String text) {
+        if (writerThread == null) {
+            return;
+        }
+
+        buffer.append(text);
+        if (buffer.length() >= CHUNK_SIZE) {
+            handOff();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writerThread != null) {
+            handOff();
+            enqueue(END_OF_TRACE);
+
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    private void handOff() {
+        if (buffer.length() == 0) {
+            return;
+        }
+
+        charsWritten += buffer.length();
+        enqueue(buffer.toString());
+        buffer.setLength(0);
+    }
+
+    private void enqueue(String chunk) {
+        long start = System.nanoTime();
+        try {
+            pending.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        blockedNanos += System.nanoTime() - start;
+    }
+
+    private void drain(Writer fileWriter, boolean echoToConsole) {
+        try {
+            while (true) {
+                String chunk = pending.take();
+                if (chunk == END_OF_TRACE) {
+                    break;
+                }
+
+                // after a failed write keep taking chunks so the simulation thread never blocks on put
+                if (writeError != null) {
+                    continue;
+                }
+
+                if (echoToConsole) {
+                    System.out.print(chunk);
+                }
+
+                try {
+                    fileWriter.write(chunk);
+                } catch (IOException e) {
+                    writeError = e;
+                }
+            }
+
+            if (echoToConsole) {
+                System.out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                fileWriter.close();
+            } catch (IOException e) {
+                if (writeError == null) {
+                    writeError = e;
+                }
+            }
+        }
+    }
+}
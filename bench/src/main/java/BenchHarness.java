@@ -0,0 +1,110 @@
+import bench.SimulatorHarness;
+
+// Default-package side of the benchmarks, see bench.SimulatorHarness.
+public class BenchHarness implements SimulatorHarness {
+
+    private Simulator simulator;
+
+    private InstructionQueue formattingBuffer;
+    private DataMemory formattingData;
+
+    @Override
+    public Object decode(int word, int memoryAddress) {
+        return new Instruction(word, memoryAddress);
+    }
+
+    @Override
+    public String[] getBytesAs32Bits(byte[] bytes) {
+        return Simulator.getBytesAs32Bits(bytes);
+    }
+
+    @Override
+    public void fillPreIssue(String geometry, boolean blocked) {
+        simulator = new Simulator(createConfig(geometry));
+
+        // r1 has a writer in flight for the whole run
+        if (blocked) {
+            simulator.issuedWriters.addWriter(1);
+        }
+
+        int address = 96;
+        while (!simulator.preIssueBuffer.isFull()) {
+            // ADD rd, rs, r2 with a different rd per entry (as far as the registers go)
+            int destination = 3 + (address - 96) / 4 % 29;
+            int source = blocked ? 1 : 2;
+            Instruction instruction = new Instruction(
+                    (32 << 26) | (source << 21) | (2 << 16) | (destination << 11) | 32, address);
+            simulator.preIssueBuffer.add(instruction);
+            simulator.preIssueWriters.addWriter(destination);
+            address += 4;
+        }
+    }
+
+    @Override
+    public int issueCycle() {
+        simulator.Issue();
+        return refill(simulator.preALU) + refill(simulator.preMem);
+    }
+
+    // undoes the issue of everything in the buffer
+    private int refill(InstructionQueue issued) {
+        int count = issued.size();
+        while (issued.size() > 0) {
+            Instruction instruction = issued.poll();
+            int destination = Simulator.getDestinationRegister(instruction);
+            simulator.issuedWriters.removeWriter(destination);
+            simulator.preIssueWriters.addWriter(destination);
+            simulator.preIssueBuffer.add(instruction);
+        }
+        return count;
+    }
+
+    @Override
+    public void createFormattingState(int bufferEntries, int dataWords) {
+        int[] words = {
+                (40 << 26) | (1 << 21) | (2 << 16) | 10,                        // ADDI R2, R1, #10
+                (32 << 26) | (2 << 21) | (3 << 16) | (4 << 11) | 32,            // ADD R4, R2, R3
+                (35 << 26) | (0 << 21) | (5 << 16) | 172,                       // LW R5, 172(R0)
+                (43 << 26) | (0 << 21) | (5 << 16) | 176,                       // SW R5, 176(R0)
+                (60 << 26) | (4 << 21) | (5 << 16) | (6 << 11) | 2,             // MUL R6, R4, R5
+                (32 << 26) | (6 << 16) | (7 << 11) | (2 << 6),                  // SLL R7, R6, #2
+        };
+
+        formattingBuffer = new InstructionQueue(bufferEntries);
+        for (int i = 0; i < bufferEntries; i++) {
+            formattingBuffer.add(new Instruction(words[i % words.length], 96 + 4 * i));
+        }
+
+        formattingData = new DataMemory();
+        for (int i = 0; i < dataWords; i++) {
+            formattingData.store(172 + 4 * i, i * 37 - 1000);
+        }
+    }
+
+    @Override
+    public String createBufferString() {
+        return Simulator.createBufferString(formattingBuffer, formattingBuffer.capacity());
+    }
+
+    @Override
+    public String createDataString() {
+        return Simulator.createDataString(formattingData);
+    }
+
+    @Override
+    public long simulate(String programFile, String geometry) {
+        return new Simulator(createConfig(geometry)).run(programFile, null).cycles;
+    }
+
+    private static SimulatorConfig createConfig(String geometry) {
+        SimulatorConfig config = new SimulatorConfig();
+        config.traceLevel = TraceWriter.Level.OFF;
+        config.disassemblyListing = false;
+        if (!geometry.isEmpty()) {
+            for (SweepRunner.Range range : SweepRunner.parseRanges(geometry)) {
+                config.setGeometry(range.parameter, range.min);
+            }
+        }
+        return config;
+    }
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares two JMH JSON result files (-rf json) score by score and exits with 1 if anything got slower
+// by more than the threshold. Throughput scores are better higher, the time modes better lower.
+// Usage: java -cp target/benchmarks.jar bench.CompareBaselines baseline.json current.json [threshold %]
+public class CompareBaselines {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5.0;
+
+    private static class Score {
+        final double value;
+        final double error;
+        final boolean higherIsBetter;
+
+        Score(double value, double error, boolean higherIsBetter) {
+            this.value = value;
+            this.error = error;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CompareBaselines baseline.json current.json [threshold %]");
+            System.exit(-1);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Score> baseline = readScores(args[0]);
+        Map<String, Score> current = readScores(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("  new      %s: %.3f%n", entry.getKey(), after.value);
+                continue;
+            }
+
+            double change = (after.value - before.value) / before.value * 100;
+            double worse = after.higherIsBetter ? -change : change;
+            // a change inside both error bars is noise whatever its size
+            boolean significant = Math.abs(after.value - before.value) > before.error + after.error;
+            String verdict = worse > threshold && significant ? "SLOWER" : worse < -threshold && significant ? "faster" : "same";
+            if (verdict.equals("SLOWER")) {
+                regressions++;
+            }
+            System.out.printf("  %-8s %s: %.3f -> %.3f (%+.1f%%)%n", verdict, entry.getKey(), before.value, after.value, change);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("  missing  %s%n", key);
+            }
+        }
+
+        System.out.printf("%d regression(s) over %.1f%%%n", regressions, threshold);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    // benchmark(params)[:secondary] -> score
+    private static Map<String, Score> readScores(String filename) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        JsonArray results;
+        try (Reader reader = Files.newBufferedReader(Paths.get(filename))) {
+            results = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            String key = result.get("benchmark").getAsString() + createParamsString(result);
+            boolean higherIsBetter = result.get("mode").getAsString().equals("thrpt");
+
+            scores.put(key, readScore(result.getAsJsonObject("primaryMetric"), higherIsBetter));
+            if (result.has("secondaryMetrics")) {
+                for (Map.Entry<String, JsonElement> secondary : result.getAsJsonObject("secondaryMetrics").entrySet()) {
+                    scores.put(key + ":" + secondary.getKey(), readScore(secondary.getValue().getAsJsonObject(), higherIsBetter));
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static String createParamsString(JsonObject result) {
+        if (!result.has("params")) {
+            return "";
+        }
+        Map<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+            params.put(param.getKey(), param.getValue().getAsString());
+        }
+        return params.toString();
+    }
+
+    private static Score readScore(JsonObject metric, boolean higherIsBetter) {
+        JsonElement error = metric.get("scoreError");
+        // NaN when there were too few iterations to give an error
+        double scoreError = error.isJsonPrimitive() && error.getAsJsonPrimitive().isNumber() ? error.getAsDouble() : 0;
+        return new Score(metric.get("score").getAsDouble(), scoreError, higherIsBetter);
+    }
+}
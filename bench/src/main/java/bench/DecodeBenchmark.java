@@ -0,0 +1,52 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Loading a program: decoding words into Instructions and the string form of the words used by the listing.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    @Param({"mixed"})
+    public String program;
+
+    @Param({"256"})
+    public int length;
+
+    private SimulatorHarness harness;
+    private int[] words;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        harness = SimulatorHarness.create();
+        words = SyntheticPrograms.create(program, length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * 4);
+        for (int word : words) {
+            buffer.putInt(word);
+        }
+        bytes = buffer.array();
+    }
+
+    // the whole program, so the score is per program rather than per instruction
+    @Benchmark
+    public void decodeInstructions(Blackhole blackhole) {
+        for (int i = 0; i < words.length; i++) {
+            blackhole.consume(harness.decode(words[i], 96 + 4 * i));
+        }
+    }
+
+    @Benchmark
+    public String[] getBytesAs32Bits() {
+        return harness.getBytesAs32Bits(bytes);
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-cycle text the trace is built from: one full buffer and the data section.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FormattingBenchmark {
+
+    @Param({"4", "16"})
+    public int bufferEntries;
+
+    @Param({"16", "256"})
+    public int dataWords;
+
+    private SimulatorHarness harness;
+
+    @Setup
+    public void setUp() {
+        harness = SimulatorHarness.create();
+        harness.createFormattingState(bufferEntries, dataWords);
+    }
+
+    @Benchmark
+    public String createBufferString() {
+        return harness.createBufferString();
+    }
+
+    @Benchmark
+    public String createDataString() {
+        return harness.createDataString();
+    }
+}
@@ -0,0 +1,36 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One Issue() call with a full pre-issue buffer. blocked = every entry has an RBW hazard, the worst case
+// scan; otherwise issueWidth entries issue and are put back before the next call (the put back is part
+// of the score).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class IssueBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int preIssueSize;
+
+    @Param({"true", "false"})
+    public boolean blocked;
+
+    private SimulatorHarness harness;
+
+    @Setup
+    public void setUp() {
+        harness = SimulatorHarness.create();
+        harness.fillPreIssue("preIssueSize=" + preIssueSize, blocked);
+    }
+
+    @Benchmark
+    public int issue() {
+        return harness.issueCycle();
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Whole runs of a synthetic program with no trace, from reading the .bin to the last cycle. The primary
+// score is runs per second; the "cycles" counter is simulated cycles per second.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    @Param({SyntheticPrograms.INDEPENDENT, SyntheticPrograms.DEPENDENT, SyntheticPrograms.MEMORY,
+            SyntheticPrograms.MIXED})
+    public String program;
+
+    @Param({"120"})
+    public int length;
+
+    // "name=value,..." as for -g, empty for the default machine
+    @Param({"", "renaming=1,forwardAlu=1,forwardMem=1,loadStoreQueue=1"})
+    public String geometry;
+
+    private SimulatorHarness harness;
+    private String programFile;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SimulatedCycles {
+        public long cycles;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cycles = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        harness = SimulatorHarness.create();
+        Path file = SyntheticPrograms.write(program, length);
+        programFile = file.toString();
+    }
+
+    @Benchmark
+    public long simulate(SimulatedCycles counter) {
+        long cycles = harness.simulate(programFile, geometry);
+        counter.cycles += cycles;
+        return cycles;
+    }
+}
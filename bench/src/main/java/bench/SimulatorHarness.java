@@ -0,0 +1,42 @@
+package bench;
+
+// What the benchmarks drive. The simulator lives in the default package, which a named package can't
+// import, and JMH won't run benchmarks from the default package, so BenchHarness implements this next
+// to the simulator and the benchmarks load it by name. Instructions and buffers come back as Object
+// only so they can be handed to a Blackhole.
+public interface SimulatorHarness {
+
+    static SimulatorHarness create() {
+        try {
+            return (SimulatorHarness) Class.forName("BenchHarness").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchHarness is not on the classpath", e);
+        }
+    }
+
+    // new Instruction(word, memoryAddress)
+    Object decode(int word, int memoryAddress);
+
+    // Simulator.getBytesAs32Bits
+    String[] getBytesAs32Bits(byte[] bytes);
+
+    // builds a Simulator with the geometry ("name=value,...") and fills its pre-issue buffer with ADDs.
+    // blocked: every entry reads a register with an issued writer, so Issue() scans the whole buffer and
+    // issues nothing; otherwise the entries are independent and up to issueWidth leave each cycle
+    void fillPreIssue(String geometry, boolean blocked);
+
+    // one Issue(), then puts whatever issued back into pre-issue so every call sees a full buffer.
+    // Returns how many issued.
+    int issueCycle();
+
+    // a full buffer of bufferEntries mixed instructions and dataWords words of data memory
+    void createFormattingState(int bufferEntries, int dataWords);
+
+    // Simulator.createBufferString / createDataString on the formatting state
+    String createBufferString();
+
+    String createDataString();
+
+    // runs the program with no trace or listing, returns the simulated cycles
+    long simulate(String programFile, String geometry);
+}
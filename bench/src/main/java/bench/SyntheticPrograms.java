@@ -0,0 +1,104 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Straight-line test programs in the same big-endian .bin layout as t1-t4: the instructions from
+// address 96, a BREAK, then the data words. Each kind stresses a different part of the pipeline.
+public final class SyntheticPrograms {
+
+    public static final String INDEPENDENT = "independent";  // ALU ops with no dependencies between them
+    public static final String DEPENDENT = "dependent";      // one long RBW chain
+    public static final String MEMORY = "memory";            // loads and stores over the data words
+    public static final String MIXED = "mixed";              // ALU, MUL, shifts and memory interleaved
+
+    private static final int DATA_WORDS = 16;
+
+    private SyntheticPrograms() {
+    }
+
+    // writes the program to a temporary file that is deleted on exit
+    public static Path write(String kind, int length) {
+        int[] program = create(kind, length);
+        ByteBuffer bytes = ByteBuffer.allocate(program.length * 4);
+        for (int word : program) {
+            bytes.putInt(word);
+        }
+
+        try {
+            Path file = Files.createTempFile("bench-" + kind + "-", ".bin");
+            file.toFile().deleteOnExit();
+            Files.write(file, bytes.array());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write synthetic program", e);
+        }
+    }
+
+    public static int[] create(String kind, int length) {
+        int[] program = new int[length + 1 + DATA_WORDS];
+        int dataAddress = 96 + 4 * (length + 1);
+
+        for (int i = 0; i < length; i++) {
+            program[i] = createInstruction(kind, i, dataAddress);
+        }
+        program[length] = (32 << 26) | 13;   // BREAK
+        for (int i = 0; i < DATA_WORDS; i++) {
+            program[length + 1 + i] = i + 1;
+        }
+        return program;
+    }
+
+    private static int createInstruction(String kind, int i, int dataAddress) {
+        int destination = 1 + i % 30;
+        switch (kind) {
+            case INDEPENDENT:
+                return addi(destination, 0, i);
+            case DEPENDENT:
+                return addi(destination, 1 + (i + 29) % 30, 1);
+            case MEMORY: {
+                int offset = dataAddress + 4 * (i % DATA_WORDS);
+                return i % 2 == 0 ? loadWord(destination, offset) : storeWord(destination - 1, offset);
+            }
+            case MIXED: {
+                int offset = dataAddress + 4 * (i % DATA_WORDS);
+                switch (i % 5) {
+                    case 0: return loadWord(destination, offset);
+                    case 1: return add(destination, destination - 1, 0);
+                    case 2: return mul(destination, destination - 1, destination - 2);
+                    case 3: return sll(destination, destination - 1, 1);
+                    default: return storeWord(destination - 1, offset);
+                }
+            }
+            default:
+                throw new IllegalArgumentException("Unknown synthetic program: " + kind);
+        }
+    }
+
+    private static int addi(int rt, int rs, int immediate) {
+        return (40 << 26) | (rs << 21) | (rt << 16) | (immediate & 0xFFFF);
+    }
+
+    private static int add(int rd, int rs, int rt) {
+        return (32 << 26) | (rs << 21) | (rt << 16) | (rd << 11) | 32;
+    }
+
+    private static int mul(int rd, int rs, int rt) {
+        return (60 << 26) | (rs << 21) | (rt << 16) | (rd << 11);
+    }
+
+    private static int sll(int rd, int rt, int shift) {
+        return (32 << 26) | (rt << 16) | (rd << 11) | (shift << 6);
+    }
+
+    private static int loadWord(int rt, int offset) {
+        return (35 << 26) | (rt << 16) | (offset & 0xFFFF);
+    }
+
+    private static int storeWord(int rt, int offset) {
+        return (43 << 26) | (rt << 16) | (offset & 0xFFFF);
+    }
+}
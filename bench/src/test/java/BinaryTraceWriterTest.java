@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryTraceWriterTest {
+
+    // a loop with stores, so buffers, registers and data all change along the way
+    static final Path PROGRAM = TestPrograms.write(
+            TestPrograms.addi(1, 0, -4),
+            TestPrograms.addi(3, 0, 140),
+            TestPrograms.lw(4, 136, 0),
+            TestPrograms.add(2, 2, 4),
+            TestPrograms.sw(2, 0, 3),
+            TestPrograms.addi(3, 3, 4),
+            TestPrograms.addi(1, 1, 1),
+            TestPrograms.bltz(1, -6),
+            TestPrograms.BREAK,
+            6);
+
+    // text trace written directly == binary trace rendered offline, byte for byte
+    @Test
+    void renderedTraceMatchesTextTrace() throws Exception {
+        Path directory = Files.createTempDirectory("trace-");
+        directory.toFile().deleteOnExit();
+
+        for (String geometry : new String[]{"", "dcacheSize=256,renaming=1"}) {
+            String text = runTrace(directory, "text", geometry, false);
+            String binary = runTrace(directory, "binary", geometry, true);
+
+            String rendered = directory.resolve("rendered.txt").toString();
+            TraceRenderer.render(binary + "_pipeline.trc", rendered);
+            new File(rendered).deleteOnExit();
+            assertTrue(Files.readString(Path.of(rendered)).contains("Cycle: 20"), geometry);
+            assertEquals(Files.readString(Path.of(text + "_pipeline.txt")), Files.readString(Path.of(rendered)), geometry);
+        }
+    }
+
+    private static String runTrace(Path directory, String name, String geometry, boolean binary) {
+        SimulatorConfig config = TestPrograms.config(geometry);
+        config.traceLevel = TraceWriter.Level.FILE;
+        config.binaryTrace = binary;
+        String prefix = directory.resolve(name).toString();
+        SimulationResult result = new Simulator(config).run(PROGRAM.toString(), prefix);
+        new File(prefix + (binary ? "_pipeline.trc" : "_pipeline.txt")).deleteOnExit();
+        assertNull(result.stopReason);
+        assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, result).size());
+        return prefix;
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BranchPredictorTest {
+
+    // the MUL keeps the counter's writer in flight when the BLTZ is fetched, so every loop branch is
+    // predicted; the squashed wrong-path instructions must not show up in the final state
+    @Test
+    void speculatedLoopMatchesFunctionalModel() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(2, 0, -8),
+                TestPrograms.addi(3, 0, 1),
+                TestPrograms.addi(1, 1, 3),
+                TestPrograms.mul(2, 2, 3),
+                TestPrograms.addi(2, 2, 1),
+                TestPrograms.bltz(2, -4),
+                TestPrograms.addi(4, 0, 9),
+                TestPrograms.BREAK);
+
+        for (String geometry : new String[]{"branchPredictor=1", "branchPredictor=2", "branchPredictor=1,renaming=1"}) {
+            SimulationResult result = TestPrograms.run(program, geometry + ",mulUnits=1,mulLatency=4");
+            assertNull(result.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(program, result).size(), geometry);
+
+            BranchPredictor predictor = result.branchPredictor;
+            assertEquals(8, predictor.executions, geometry);
+            assertEquals(8, predictor.predictions, geometry);
+            // bimodal learns "taken" after two; gshare's history keeps moving the counter it uses
+            assertTrue(predictor.correct >= (geometry.startsWith("branchPredictor=1") ? 6 : 1), geometry);
+            assertEquals(predictor.predictions - predictor.correct, predictor.squashes, geometry);
+        }
+    }
+
+    // operands ready at fetch: the branch is resolved there, trains the tables but isn't a prediction
+    @Test
+    void branchResolvedInFetchIsNotAPrediction() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 1),
+                TestPrograms.addi(2, 0, 2),
+                TestPrograms.addi(3, 0, 3),
+                TestPrograms.addi(4, 0, 4),
+                TestPrograms.addi(5, 0, 5),
+                TestPrograms.addi(6, 0, 6),
+                TestPrograms.bltz(0, 1),
+                TestPrograms.BREAK);
+
+        SimulationResult result = TestPrograms.run(program, "branchPredictor=1");
+        assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+        assertEquals(1, result.branchPredictor.executions);
+        assertEquals(0, result.branchPredictor.predictions);
+        assertEquals(0.0, result.branchPredictor.getAccuracy());
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CheckpointTest {
+
+    // five iterations, each storing R2 to the next word from 140
+    private static final Path PROGRAM = TestPrograms.write(
+            TestPrograms.addi(1, 0, -5),
+            TestPrograms.addi(3, 0, 140),
+            TestPrograms.addi(2, 2, 3),
+            TestPrograms.sw(2, 0, 3),
+            TestPrograms.addi(3, 3, 4),
+            TestPrograms.addi(1, 1, 1),
+            TestPrograms.bltz(1, -5),
+            TestPrograms.BREAK,
+            7);
+
+    // fast-forward part way into the loop, save, load, and finish on the pipeline: the end state is the
+    // same as running the whole program on the functional model
+    @Test
+    void pipelineFinishesFromSavedCheckpoint() throws Exception {
+        FunctionalSimulator functional = FunctionalSimulator.load(PROGRAM.toString());
+        assertEquals(9, functional.run(9));
+        Checkpoint saved = Checkpoint.capture(functional);
+
+        Path file = Files.createTempFile("test-", ".ckpt");
+        file.toFile().deleteOnExit();
+        saved.save(file.toString());
+        Checkpoint loaded = Checkpoint.load(file.toString());
+
+        assertEquals(saved.programCounter, loaded.programCounter);
+        assertEquals(9, loaded.instructionsExecuted);
+        assertArrayEquals(saved.registers, loaded.registers);
+        assertEquals(Simulator.createDataString(saved.data), Simulator.createDataString(loaded.data));
+
+        for (String geometry : new String[]{"", "renaming=1", "loadStoreQueue=1,dcacheSize=256"}) {
+            SimulationResult result = new Simulator(TestPrograms.config(geometry)).run(PROGRAM.toString(), null, loaded);
+            assertNull(result.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, result).size(), geometry);
+            assertEquals(15, result.registers[2], geometry);
+            // 2 before the loop and 4 in each of its 5 iterations, less the 9 fast-forwarded
+            assertEquals(13, result.instructionsCompleted, geometry);
+        }
+    }
+}
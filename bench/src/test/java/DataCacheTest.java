@@ -0,0 +1,30 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DataCacheTest {
+
+    // the ADDI to the base register retires while the load's miss is outstanding; the load must still
+    // read the word at the address it computed in MEM
+    @Test
+    void loadUsesAddressFromMemStage() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 112),
+                TestPrograms.lw(3, 0, 1),
+                TestPrograms.addi(1, 1, 4),
+                TestPrograms.BREAK,
+                66,
+                0);
+
+        for (String geometry : new String[]{"", "dcacheSize=256", "dcacheSize=256,dcacheNonBlocking=1",
+                "dcacheSize=256,loadStoreQueue=1", "dcacheSize=256,renaming=1"}) {
+            SimulationResult result = TestPrograms.run(program, geometry);
+            assertNull(result.stopReason, geometry);
+            assertEquals(66, result.registers[3], geometry);
+            assertEquals(116, result.registers[1], geometry);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataMemoryTest {
+
+    // two stores far apart in one page are two runs, not everything between them
+    @Test
+    void runsCoverOnlyWrittenWords() {
+        DataMemory data = new DataMemory();
+        data.store(112, 1);
+        data.store(2000, 2);
+
+        List<int[]> runs = data.getRuns();
+        assertEquals(2, runs.size());
+        assertArrayEquals(new int[]{112, 1}, runs.get(0));
+        assertArrayEquals(new int[]{2000, 1}, runs.get(1));
+        assertEquals("\n112:\t1\t\n2000:\t2\t", Simulator.createDataString(data));
+    }
+
+    // adjacent words join up across bitmap words and across pages
+    @Test
+    void adjacentWordsCoalesce() {
+        DataMemory data = new DataMemory();
+        for (int address = 248; address <= 260; address += 4) {
+            data.store(address, address);
+        }
+        data.store(4092, 1);
+        data.store(4096, 2);
+        data.store(120, 3);
+        data.store(116, 4);
+
+        List<int[]> runs = data.getRuns();
+        assertEquals(3, runs.size());
+        assertArrayEquals(new int[]{116, 2}, runs.get(0));
+        assertArrayEquals(new int[]{248, 4}, runs.get(1));
+        assertArrayEquals(new int[]{4092, 2}, runs.get(2));
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaTraceFormatterTest {
+    private static final String SEPARATOR = "--------------------";
+    private static final Pattern CYCLE = Pattern.compile("Cycle: (\\d+)");
+    private static final Pattern REGISTER_ROW = Pattern.compile("r(\\d\\d):((?:\\t-?\\d+){8})");
+    private static final Pattern REGISTER_DELTA = Pattern.compile("\\tr(\\d\\d):\\t(-?\\d+)");
+
+    // keyframes are the full trace's cycles unchanged, and replaying the register deltas from them ends
+    // at the registers the run finished with
+    @Test
+    void keyframesAndDeltasRebuildTheRun() throws Exception {
+        Path directory = Files.createTempDirectory("delta-");
+        directory.toFile().deleteOnExit();
+
+        Map<Long, String> full = cycles(runTrace(directory, "full", 0));
+        Map<Long, String> delta = cycles(runTrace(directory, "delta", 4));
+        assertTrue(full.size() > 12);
+
+        int[] registers = new int[32];
+        SimulationResult result = null;
+        for (long cycle = 1; cycle <= full.size(); cycle++) {
+            String block = delta.get(cycle);
+            if ((cycle - 1) % 4 == 0) {
+                assertEquals(full.get(cycle), block, "cycle " + cycle);
+                readRegisterRows(block, registers);
+            } else if (block != null) {
+                assertTrue(block.contains("(delta)"), "cycle " + cycle);
+                Matcher m = REGISTER_DELTA.matcher(block);
+                while (m.find()) {
+                    registers[Integer.parseInt(m.group(1))] = Integer.parseInt(m.group(2));
+                }
+            }
+        }
+
+        int[] last = new int[32];
+        readRegisterRows(full.get((long) full.size()), last);
+        assertArrayEquals(last, registers);
+    }
+
+    private static String runTrace(Path directory, String name, int keyframeInterval) throws Exception {
+        SimulatorConfig config = TestPrograms.config("");
+        config.traceLevel = TraceWriter.Level.FILE;
+        config.deltaKeyframeInterval = keyframeInterval;
+        String prefix = directory.resolve(name).toString();
+        SimulationResult result = new Simulator(config).run(BinaryTraceWriterTest.PROGRAM.toString(), prefix);
+        assertNull(result.stopReason);
+        assertEquals(0, TestPrograms.compareWithFunctional(BinaryTraceWriterTest.PROGRAM, result).size());
+
+        File trace = new File(prefix + "_pipeline.txt");
+        trace.deleteOnExit();
+        return Files.readString(trace.toPath());
+    }
+
+    // cycle number -> that cycle's block of the trace
+    private static Map<Long, String> cycles(String trace) {
+        Map<Long, String> blocks = new HashMap<>();
+        for (String block : trace.split(SEPARATOR)) {
+            Matcher m = CYCLE.matcher(block);
+            if (m.find()) {
+                blocks.put(Long.parseLong(m.group(1)), block);
+            }
+        }
+        return blocks;
+    }
+
+    private static void readRegisterRows(String block, int[] registers) {
+        Matcher m = REGISTER_ROW.matcher(block);
+        while (m.find()) {
+            int first = Integer.parseInt(m.group(1));
+            String[] values = m.group(2).substring(1).split("\\t");
+            for (int i = 0; i < values.length; i++) {
+                registers[first + i] = Integer.parseInt(values[i]);
+            }
+        }
+    }
+}
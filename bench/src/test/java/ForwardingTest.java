@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForwardingTest {
+
+    // a loaded value and a chain of ALU results, each used straight away
+    private static final Path PROGRAM = TestPrograms.write(
+            TestPrograms.lw(4, 124, 0),
+            TestPrograms.add(5, 4, 4),
+            TestPrograms.addi(1, 0, 3),
+            TestPrograms.add(2, 1, 1),
+            TestPrograms.add(3, 2, 5),
+            TestPrograms.sw(3, 128, 0),
+            TestPrograms.BREAK,
+            21,
+            0);
+
+    @Test
+    void bypassedOperandsMatchFunctionalModel() {
+        SimulationResult plain = TestPrograms.run(PROGRAM, "");
+        assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, plain).size());
+        assertEquals(0, plain.forwardedFromAlu + plain.forwardedFromMem);
+
+        for (String geometry : new String[]{"forwardAlu=1", "forwardMem=1", "forwardAlu=1,forwardMem=1",
+                "forwardAlu=1,forwardMem=1,dcacheSize=256", "forwardAlu=1,forwardMem=1,loadStoreQueue=1"}) {
+            SimulationResult result = TestPrograms.run(PROGRAM, geometry);
+            assertNull(result.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, result).size(), geometry);
+            assertEquals(48, result.data.load(128), geometry);
+        }
+
+        SimulationResult alu = TestPrograms.run(PROGRAM, "forwardAlu=1");
+        assertTrue(alu.forwardedFromAlu > 0);
+        assertEquals(0, alu.forwardedFromMem);
+        assertTrue(alu.cycles < plain.cycles);
+
+        SimulationResult mem = TestPrograms.run(PROGRAM, "forwardMem=1");
+        assertTrue(mem.forwardedFromMem > 0);
+        assertEquals(0, mem.forwardedFromAlu);
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FunctionalSimulatorTest {
+
+    // -F counts on the functional model and -W on the pipeline, both have to leave the branches out
+    @Test
+    void countsInstructionsLikeThePipeline() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, -3),
+                TestPrograms.addi(1, 1, 1),
+                TestPrograms.bltz(1, -2),
+                TestPrograms.BREAK);
+
+        FunctionalSimulator functional = FunctionalSimulator.load(program.toString());
+        functional.run(FunctionalSimulator.DEFAULT_INSTRUCTION_LIMIT);
+        assertEquals(4, functional.instructionsExecuted);
+
+        SimulationResult result = TestPrograms.run(program, "");
+        assertNull(result.stopReason);
+        assertEquals(functional.instructionsExecuted, result.instructionsCompleted);
+    }
+
+    // three jumps and branches for every two instructions: fast-forward still stops at exactly the
+    // instruction asked for
+    @Test
+    void fastForwardThroughBranchyLoop() {
+        Path program = branchyLoop();
+
+        FunctionalSimulator functional = FunctionalSimulator.load(program.toString());
+        assertEquals(50, functional.run(50));
+        assertEquals(50, functional.instructionsExecuted);
+        assertEquals(25, functional.registers[1]);
+        assertEquals(50, Checkpoint.capture(functional).instructionsExecuted);
+    }
+
+    @Test
+    void sampleWindowsStartEveryInterval() {
+        Path program = branchyLoop();
+        SimulatorConfig config = TestPrograms.config("");
+        config.windowInstructions = 5;
+
+        List<SamplingRunner.Window> windows = SamplingRunner.run(program.toString(), config, 20, 2, null);
+        assertEquals(7, windows.size());
+        for (int i = 0; i < windows.size(); i++) {
+            SamplingRunner.Window window = windows.get(i);
+            assertEquals(20L * i, window.startInstruction);
+            assertNull(window.error);
+            assertTrue(window.result.instructionsCompleted >= 1);
+        }
+    }
+
+    @Test
+    void branchOnlyLoopStopsAtTheLimit() {
+        Path program = TestPrograms.write(
+                TestPrograms.j(96),
+                TestPrograms.BREAK);
+
+        FunctionalSimulator functional = FunctionalSimulator.load(program.toString());
+        assertEquals(0, functional.run(1000));
+        assertFalse(functional.halted);
+    }
+
+    // R2 counts up from -60: 60 iterations of ADDI, J, J, ADDI, BLTZ, 121 instructions in all
+    private static Path branchyLoop() {
+        return TestPrograms.write(
+                TestPrograms.addi(2, 0, -60),
+                TestPrograms.addi(1, 1, 1),
+                TestPrograms.j(108),
+                TestPrograms.j(112),
+                TestPrograms.addi(2, 2, 1),
+                TestPrograms.bltz(2, -5),
+                TestPrograms.BREAK);
+    }
+}
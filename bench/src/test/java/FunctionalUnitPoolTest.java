@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FunctionalUnitPoolTest {
+
+    // the ADDI finishes on the ALU before the MUL and overwrites R1, which the MUL must not see
+    @Test
+    void longOpKeepsOperandsFromDispatch() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 3),
+                TestPrograms.addi(2, 0, 4),
+                TestPrograms.mul(3, 1, 2),
+                TestPrograms.addi(1, 0, 100),
+                TestPrograms.BREAK);
+
+        for (String geometry : new String[]{"", "mulUnits=1,mulLatency=4", "mulUnits=1,mulLatency=4,renaming=1"}) {
+            SimulationResult result = TestPrograms.run(program, geometry);
+            assertNull(result.stopReason, geometry);
+            assertEquals(12, result.registers[3], geometry);
+            assertEquals(100, result.registers[1], geometry);
+        }
+    }
+
+    @Test
+    void longShiftKeepsOperandsFromDispatch() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 5),
+                TestPrograms.sll(2, 1, 2),
+                TestPrograms.addi(1, 0, -7),
+                TestPrograms.BREAK);
+
+        SimulationResult result = TestPrograms.run(program, "shiftUnits=1,shiftLatency=3");
+        assertEquals(20, result.registers[2]);
+        assertEquals(-7, result.registers[1]);
+        assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+    }
+}
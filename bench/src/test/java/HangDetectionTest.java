@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HangDetectionTest {
+
+    // the jump lands past the BREAK, fetch then walks through empty slots forever with nothing to do
+    @Test
+    void runningOffTheEndIsAHang() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 5),
+                TestPrograms.j(400),
+                TestPrograms.BREAK);
+
+        for (String geometry : new String[]{"", "renaming=1", "branchPredictor=1"}) {
+            SimulatorConfig config = TestPrograms.config(geometry);
+            config.hangCycles = 100;
+            SimulationResult result = new Simulator(config).run(program.toString(), null);
+
+            assertNotNull(result.stopReason, geometry);
+            assertTrue(result.stopReason.startsWith("Hang: the program counter left the program"), result.stopReason);
+            assertTrue(result.cycles < 1000, geometry);
+            assertEquals(5, result.registers[1], geometry);
+        }
+    }
+
+    // nothing but a jump: the PC keeps being refetched but nothing ever enters the pipeline
+    @Test
+    void branchOnlyLoopIsAHang() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 5),
+                TestPrograms.j(100),
+                TestPrograms.BREAK);
+
+        for (String geometry : new String[]{"", "branchPredictor=1"}) {
+            SimulatorConfig config = TestPrograms.config(geometry);
+            assertEquals(0, config.maxCycles);
+            config.hangCycles = 100;
+            SimulationResult result = new Simulator(config).run(program.toString(), null);
+
+            assertNotNull(result.stopReason, geometry);
+            assertTrue(result.stopReason.startsWith("Hang:"), result.stopReason);
+            assertTrue(result.cycles < 1000, geometry);
+            assertEquals(5, result.registers[1], geometry);
+        }
+    }
+}
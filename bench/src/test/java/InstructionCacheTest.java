@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InstructionCacheTest {
+
+    // four instructions in one block: the first fetch misses, the retry after the fill isn't counted again
+    @Test
+    void missIsCountedOnce() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 1),
+                TestPrograms.addi(2, 0, 2),
+                TestPrograms.addi(3, 0, 3),
+                TestPrograms.BREAK);
+
+        CacheStats stats = run(program);
+        assertEquals(1, stats.misses);
+        assertEquals(3, stats.hits);
+    }
+
+    // the BLTZ waits several cycles for R1 without being fetched again
+    @Test
+    void stalledBranchIsCountedOnce() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 1),
+                TestPrograms.bltz(1, 0),
+                TestPrograms.addi(2, 0, 2),
+                TestPrograms.BREAK);
+
+        CacheStats stats = run(program);
+        assertEquals(1, stats.misses);
+        assertEquals(3, stats.hits);
+    }
+
+    private static CacheStats run(Path program) {
+        SimulationResult result = TestPrograms.run(program, "icacheSize=64,icacheBlockSize=16");
+        assertNull(result.stopReason);
+        assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+        return result.instructionCacheStats;
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstructionProfileTest {
+
+    // without a predictor every instruction is fetched exactly as often as the functional model executes
+    // it, and everything but the branches issues that often too
+    @Test
+    void countsMatchFunctionalExecutions() throws Exception {
+        Path program = BinaryTraceWriterTest.PROGRAM;
+        Map<Integer, Long> executions = new HashMap<>();
+        FunctionalSimulator functional = FunctionalSimulator.load(program.toString());
+        while (!functional.halted) {
+            executions.merge(functional.programCounter, 1L, Long::sum);
+            functional.step();
+        }
+
+        Path directory = Files.createTempDirectory("profile-");
+        directory.toFile().deleteOnExit();
+        String prefix = directory.resolve("run").toString();
+        SimulatorConfig config = TestPrograms.config("");
+        config.profile = true;
+        SimulationResult result = new Simulator(config).run(program.toString(), prefix);
+        assertNull(result.stopReason);
+        assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+
+        File listing = new File(prefix + "_profile.txt");
+        File folded = new File(prefix + "_profile.folded");
+        listing.deleteOnExit();
+        folded.deleteOnExit();
+
+        List<String> lines = Files.readAllLines(listing.toPath());
+        assertEquals("fetch\tissue\twait\tstalls\tinstruction", lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split("\t");
+            int address = Integer.parseInt(fields[4].substring(fields[4].lastIndexOf(' ') + 1).trim());
+            boolean branch = line.contains("BLTZ") || line.contains("BREAK");
+            long expected = executions.getOrDefault(address, 0L);
+            if (!line.contains("BREAK")) {
+                assertEquals(expected, Long.parseLong(fields[0]), line);
+            }
+            assertEquals(branch ? 0 : expected, Long.parseLong(fields[1]), line);
+        }
+
+        // the ADD waits on the load before it every iteration
+        assertTrue(Files.readString(folded.toPath()).contains(";108 ADD R2, R2, R4;rbw "));
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IssueTest {
+
+    // bits 15..11 of a store's offset are its rd field; a store writes no register, so an in-flight write
+    // to the register those bits name must not hold it up
+    @Test
+    void storeOffsetIsNotADestination() {
+        long[] cycles = new long[2];
+        int[] offsetRegisters = {5, 6};
+        for (int i = 0; i < 2; i++) {
+            int offset = offsetRegisters[i] << 11;
+            Path program = TestPrograms.write(
+                    TestPrograms.addi(1, 0, 116 - offset),
+                    TestPrograms.addi(2, 0, 7),
+                    TestPrograms.mul(5, 2, 2),
+                    TestPrograms.sw(2, offset, 1),
+                    TestPrograms.BREAK,
+                    0);
+
+            SimulationResult result = TestPrograms.run(program, "mulUnits=1,mulLatency=4");
+            assertNull(result.stopReason);
+            assertEquals(49, result.registers[5]);
+            assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+            cycles[i] = result.cycles;
+        }
+        assertEquals(cycles[1], cycles[0]);
+    }
+
+    // the store waits in pre-MEM behind the load's miss; the ADDI goes down the ALU pipe and must not write
+    // R2 before the store has read it
+    @Test
+    void writeWaitsForIssuedStoreToReadOperand() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 120),
+                TestPrograms.addi(2, 0, 7),
+                TestPrograms.lw(5, 0, 1),
+                TestPrograms.sw(2, 4, 1),
+                TestPrograms.addi(2, 0, 9),
+                TestPrograms.BREAK,
+                66,
+                0);
+
+        for (String geometry : new String[]{"", "dcacheSize=256", "dcacheSize=256,loadStoreQueue=1",
+                "dcacheSize=256,forwardAlu=1"}) {
+            SimulationResult result = TestPrograms.run(program, geometry);
+            assertNull(result.stopReason, geometry);
+            assertEquals(7, result.data.load(124), geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(program, result).size(), geometry);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadStoreQueueTest {
+
+    // the first load reads the word the store before it writes, the second goes to a word in another
+    // block while the store is still queued
+    private static final Path PROGRAM = TestPrograms.write(
+            TestPrograms.addi(1, 0, 128),
+            TestPrograms.addi(2, 0, 55),
+            TestPrograms.sw(2, 0, 1),
+            TestPrograms.lw(3, 0, 1),
+            TestPrograms.lw(4, 64, 1),
+            TestPrograms.add(5, 3, 4),
+            TestPrograms.sw(5, 4, 1),
+            TestPrograms.BREAK,
+            11,
+            12,
+            0);
+
+    @Test
+    void forwardsAndBypassesLikeFunctionalModel() {
+        for (String geometry : new String[]{"loadStoreQueue=1", "loadStoreQueue=1,lsqSize=2",
+                "loadStoreQueue=1,dcacheSize=256", "loadStoreQueue=1,dcacheSize=256,dcacheNonBlocking=1",
+                "loadStoreQueue=1,renaming=1", "loadStoreQueue=1,memUnits=2,issueWidth=4"}) {
+            SimulationResult result = TestPrograms.run(PROGRAM, geometry);
+            assertNull(result.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, result).size(), geometry);
+            assertEquals(55, result.registers[3], geometry);
+            assertEquals(55, result.data.load(132), geometry);
+            assertEquals(0, result.loadStoreQueue.size(), geometry);
+        }
+
+        SimulationResult result = TestPrograms.run(PROGRAM, "loadStoreQueue=1,dcacheSize=256,dcacheNonBlocking=1");
+        assertTrue(result.loadStoreQueue.loadsForwarded > 0, "forwarded " + result.loadStoreQueue.loadsForwarded);
+        assertTrue(result.loadStoreQueue.loadsBypassed > 0, "bypassed " + result.loadStoreQueue.loadsBypassed);
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerformanceCountersTest {
+
+    // ADD waits on the MUL (RBW) and the store on the ADD; the D-cache misses once
+    private static final Path PROGRAM = TestPrograms.write(
+            TestPrograms.addi(1, 0, 3),
+            TestPrograms.mul(2, 1, 1),
+            TestPrograms.add(3, 2, 1),
+            TestPrograms.sw(3, 124, 0),
+            TestPrograms.addi(4, 0, 1),
+            TestPrograms.BREAK,
+            0);
+
+    // every stage accounts for every cycle exactly once, and the causes match what the program does
+    @Test
+    void everyCycleIsAccountedFor() {
+        for (String geometry : new String[]{"dcacheSize=256,mulUnits=1,mulLatency=4",
+                "dcacheSize=256,mulUnits=1,mulLatency=4,renaming=1"}) {
+            SimulatorConfig config = TestPrograms.config(geometry);
+            config.countersFormat = "csv";
+            SimulationResult result = new Simulator(config).run(PROGRAM.toString(), null);
+            assertNull(result.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(PROGRAM, result).size(), geometry);
+
+            PerformanceCounters counters = result.counters;
+            assertEquals(result.cycles, counters.cycles, geometry);
+            boolean renaming = geometry.contains("renaming");
+            for (PerformanceCounters.Stage stage : PerformanceCounters.Stage.values()) {
+                long total = 0;
+                for (PerformanceCounters.Stall stall : PerformanceCounters.Stall.values()) {
+                    total += counters.getStallCycles(stage, stall);
+                }
+                boolean recorded = stage != PerformanceCounters.Stage.COMMIT || renaming;
+                assertEquals(recorded ? result.cycles : 0, total, geometry + " " + stage);
+            }
+
+            assertTrue(counters.getStallCycles(PerformanceCounters.Stage.ISSUE, PerformanceCounters.Stall.RBW) > 0, geometry);
+            assertTrue(counters.getStallCycles(PerformanceCounters.Stage.MEM, PerformanceCounters.Stall.DCACHE_MISS) > 0, geometry);
+            assertTrue(counters.getStallCycles(PerformanceCounters.Stage.FETCH, PerformanceCounters.Stall.HALTED) > 0, geometry);
+            assertTrue(counters.toCsv(PROGRAM.toString(), result.instructionsCompleted, result.instructionsCompleted)
+                    .contains("total,instructions,,5"), geometry);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisterRenamerTest {
+
+    // the second writes of R1 and R2 are WAR / WAW on the long MUL; renamed they don't wait for it, and
+    // the readers still see the right versions
+    @Test
+    void falseDependenciesDontStall() {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 2),
+                TestPrograms.mul(2, 1, 1),
+                TestPrograms.addi(1, 0, 5),
+                TestPrograms.add(3, 2, 1),
+                TestPrograms.addi(2, 0, 7),
+                TestPrograms.add(4, 2, 2),
+                TestPrograms.add(5, 1, 4),
+                TestPrograms.BREAK);
+
+        SimulationResult scoreboard = TestPrograms.run(program, "mulUnits=1,mulLatency=6");
+        assertEquals(0, TestPrograms.compareWithFunctional(program, scoreboard).size());
+
+        for (String geometry : new String[]{"renaming=1", "renaming=1,physicalRegisters=34,robSize=2",
+                "renaming=1,commitWidth=1,issueWidth=4"}) {
+            SimulationResult renamed = TestPrograms.run(program, geometry + ",mulUnits=1,mulLatency=6");
+            assertNull(renamed.stopReason, geometry);
+            assertEquals(0, TestPrograms.compareWithFunctional(program, renamed).size(), geometry);
+            assertEquals(9, renamed.registers[3], geometry);
+            assertEquals(14, renamed.registers[4], geometry);
+            assertEquals(7, renamed.instructionsCompleted, geometry);
+        }
+
+        SimulationResult renamed = TestPrograms.run(program, "renaming=1,mulUnits=1,mulLatency=6");
+        assertTrue(renamed.cycles < scoreboard.cycles, renamed.cycles + " vs " + scoreboard.cycles);
+    }
+}
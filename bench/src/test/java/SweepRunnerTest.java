@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SweepRunnerTest {
+
+    // 16 physical registers is rejected by the renamer; that configuration gets an error row and the
+    // other one still runs and matches a run of its own
+    @Test
+    void invalidCombinationGetsAnErrorRow() throws IOException {
+        Path program = TestPrograms.write(
+                TestPrograms.addi(1, 0, 3),
+                TestPrograms.add(2, 1, 1),
+                TestPrograms.mul(3, 2, 1),
+                TestPrograms.BREAK);
+        Path csv = Files.createTempFile("sweep-", ".csv");
+        csv.toFile().deleteOnExit();
+
+        SweepRunner.run(program.toString(), csv.toString(), TestPrograms.config("renaming=1"),
+                SweepRunner.parseRanges("physicalRegisters=16:64:48"), 2);
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(3, lines.size());
+        List<String> header = Arrays.asList(lines.get(0).split(","));
+        int cycles = header.indexOf("cycles");
+        int registers = header.indexOf("physicalRegisters");
+
+        String[] invalid = lines.get(1).split(",", -1);
+        assertEquals("16", invalid[registers]);
+        assertEquals("", invalid[cycles]);
+        assertTrue(invalid[invalid.length - 1].contains("physical registers"), lines.get(1));
+
+        String[] valid = lines.get(2).split(",", -1);
+        assertEquals(header.size(), valid.length);
+        assertEquals("64", valid[registers]);
+        SimulationResult result = TestPrograms.run(program, "renaming=1,physicalRegisters=64");
+        assertEquals(String.valueOf(result.cycles), valid[cycles]);
+        assertEquals(0, TestPrograms.compareWithFunctional(program, result).size());
+    }
+}
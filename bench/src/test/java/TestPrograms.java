@@ -0,0 +1,85 @@
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Builds small .bin programs (instructions from address 96, then BREAK and the data words) and runs them
+// on the pipeline and the functional model.
+final class TestPrograms {
+    static final int BREAK = (32 << 26) | 13;
+
+    private TestPrograms() {
+    }
+
+    static int addi(int rt, int rs, int immediate) {
+        return (40 << 26) | (rs << 21) | (rt << 16) | (immediate & 0xFFFF);
+    }
+
+    static int add(int rd, int rs, int rt) {
+        return (32 << 26) | (rs << 21) | (rt << 16) | (rd << 11) | 32;
+    }
+
+    static int mul(int rd, int rs, int rt) {
+        return (60 << 26) | (rs << 21) | (rt << 16) | (rd << 11);
+    }
+
+    static int sll(int rd, int rt, int shift) {
+        return (32 << 26) | (rt << 16) | (rd << 11) | (shift << 6);
+    }
+
+    static int lw(int rt, int offset, int rs) {
+        return (35 << 26) | (rs << 21) | (rt << 16) | (offset & 0xFFFF);
+    }
+
+    static int sw(int rt, int offset, int rs) {
+        return (43 << 26) | (rs << 21) | (rt << 16) | (offset & 0xFFFF);
+    }
+
+    static int bltz(int rs, int wordOffset) {
+        return (33 << 26) | (rs << 21) | (wordOffset & 0xFFFF);
+    }
+
+    static int j(int target) {
+        return (34 << 26) | (target >>> 2);
+    }
+
+    static Path write(int... words) {
+        try {
+            Path file = Files.createTempFile("test-", ".bin");
+            file.toFile().deleteOnExit();
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file.toFile()))) {
+                for (int word : words) {
+                    out.writeInt(word);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // "name=value,..." as for -g
+    static SimulatorConfig config(String geometry) {
+        SimulatorConfig config = new SimulatorConfig();
+        config.traceLevel = TraceWriter.Level.OFF;
+        config.disassemblyListing = false;
+        if (!geometry.isEmpty()) {
+            Main.applyGeometry(config, geometry);
+        }
+        return config;
+    }
+
+    static SimulationResult run(Path program, String geometry) {
+        return new Simulator(config(geometry)).run(program.toString(), null);
+    }
+
+    // differences between the pipeline's final state and the functional model's, empty when they agree
+    static List<String> compareWithFunctional(Path program, SimulationResult result) {
+        FunctionalSimulator functional = FunctionalSimulator.load(program.toString());
+        functional.run(FunctionalSimulator.DEFAULT_INSTRUCTION_LIMIT);
+        return FunctionalSimulator.compare(functional.registers, functional.data, result.registers, result.data);
+    }
+}